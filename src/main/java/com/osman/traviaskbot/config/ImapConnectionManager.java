@@ -0,0 +1,169 @@
+package com.osman.traviaskbot.config;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Folder;
+import jakarta.mail.FolderClosedException;
+import jakarta.mail.Store;
+import jakarta.mail.StoreClosedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.imap.IMAPFolder;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Taramalar için uzun ömürlü IMAP bağlantısı.
+ * <p>
+ * TLS el sıkışması, LOGIN ve SELECT her taramada tekrarlanmaz; Store ve
+ * INBOX açık tutulur, boşta kaldığında NOOP ile canlı tutulur. Bağlantı
+ * koparsa bir sonraki kullanımda (ya da keepalive'da) yeniden kurulur.
+ * IDLE dinleyicisi bağlantıyı bloklayacağı için kendi bağlantısını kullanır.
+ * <p>
+ * Klasöre aynı anda tek iş erişir; keepalive tarama sürerken beklemez, atlar.
+ * <p>
+ * Health: tek bir kopma geçicidir (sonraki kullanımda yeniden bağlanılır),
+ * {@code DEGRADED} raporlanır; art arda {@value #DOWN_AFTER} bağlantı hatasında
+ * {@code DOWN}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImapConnectionManager implements HealthIndicator {
+
+    @FunctionalInterface
+    public interface FolderWork<T> {
+        T apply(IMAPFolder folder) throws Exception;
+    }
+
+    /** DEGRADED: bağlantı koptu, sonraki kullanımda yeniden kurulacak (HTTP 200) */
+    public static final Status DEGRADED   = new Status("DEGRADED");
+    /** art arda bu kadar başarısız bağlanma / keepalive → DOWN */
+    static final int           DOWN_AFTER = 3;
+
+    private final ImapProperties props;
+
+    private final ReentrantLock lock       = new ReentrantLock();
+    private final AtomicLong    connects   = new AtomicLong();
+    private final AtomicInteger failures   = new AtomicInteger();
+    private Store               store;
+    private IMAPFolder          folder;
+
+    private volatile Instant connectedAt;
+    private volatile Instant lastActivity;
+    private volatile String  lastError;
+
+    /** Açık INBOX üzerinde iş çalıştırır; gerekirse önce bağlanır. */
+    public <T> T withFolder(FolderWork<T> work) throws Exception {
+        lock.lock();
+        try {
+            IMAPFolder f = ensureOpen();
+            try {
+                T result = work.apply(f);
+                lastActivity = Instant.now();
+                return result;
+            } catch (FolderClosedException | StoreClosedException ex) {
+                drop(ex);
+                throw ex;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Sunucu (Gmail ~10 dk) boşta bağlantıyı düşürmesin; kopmuşsa yeniden bağlan */
+    @Scheduled(fixedDelayString   = "#{@imapProperties.keepalive.toMillis()}",
+               initialDelayString = "#{@imapProperties.keepalive.toMillis()}")
+    public void keepAlive() {
+        if (!lock.tryLock()) return;             // tarama sürüyor → bağlantı zaten aktif
+        try {
+            if (folder == null || !folder.isOpen()) {
+                ensureOpen();
+                return;
+            }
+            folder.doCommand(p -> {
+                p.noop();
+                return null;
+            });
+            lastActivity = Instant.now();
+        } catch (Exception ex) {
+            drop(ex);
+            log.warn("⚠️ IMAP keepalive başarısız, sonraki kullanımda yeniden bağlanılacak: {}", ex.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder b;
+        int failed = failures.get();
+        if (connectedAt != null && lastError == null) b = Health.up();
+        else if (lastError == null)                   b = Health.unknown();
+        else if (failed >= DOWN_AFTER)                b = Health.down().withDetail("error", lastError);
+        else                                          b = Health.status(DEGRADED).withDetail("error", lastError);
+        return b.withDetail("folder", props.getFolder())
+                .withDetail("connects", connects.get())
+                .withDetail("consecutiveFailures", failed)
+                .withDetail("connectedAt", String.valueOf(connectedAt))
+                .withDetail("lastActivity", String.valueOf(lastActivity))
+                .build();
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            closeQuietly();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* ————————————————— helpers ————————————————— */
+
+    private IMAPFolder ensureOpen() throws Exception {
+        if (folder != null && folder.isOpen()) return folder;
+        closeQuietly();
+        try {
+            store  = props.connect();
+            folder = (IMAPFolder) store.getFolder(props.getFolder());
+            folder.open(Folder.READ_WRITE);
+        } catch (Exception ex) {
+            drop(ex);
+            throw ex;
+        }
+        connects.incrementAndGet();
+        failures.set(0);
+        connectedAt  = Instant.now();
+        lastActivity = connectedAt;
+        lastError    = null;
+        log.info("📡 IMAP bağlantısı kuruldu ({}, #{})", props.getFolder(), connects.get());
+        return folder;
+    }
+
+    private void drop(Exception cause) {
+        failures.incrementAndGet();
+        lastError   = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        connectedAt = null;
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        try {
+            if (folder != null && folder.isOpen()) folder.close(false);
+        } catch (Exception ignore) { /* zaten kopmuş */ }
+        try {
+            if (store != null) store.close();
+        } catch (Exception ignore) { /* zaten kopmuş */ }
+        folder = null;
+        store  = null;
+    }
+}
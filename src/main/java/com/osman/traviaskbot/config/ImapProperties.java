@@ -0,0 +1,51 @@
+package com.osman.traviaskbot.config;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Store;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * IMAP bağlantı ayarları. Varsayılanlar Gmail içindir; testlerde
+ * GreenMail gibi yerel bir sunucuya yönlendirilebilir.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "mail.imap")
+public class ImapProperties {
+
+    private String host     = "imap.gmail.com";
+    private int    port     = -1;                 // -1 → protokolün varsayılan portu
+    private String protocol = "imaps";
+    private String folder   = "INBOX";
+    private String user     = EnvConfig.getGmailUser();
+    private String password = EnvConfig.getGmailPassword();
+    /** Tarama bağlantısı boştayken NOOP aralığı ({@link ImapConnectionManager#keepAlive()} zamanlaması) */
+    private Duration keepalive = Duration.ofMinutes(5);
+
+    private final Idle idle = new Idle();
+
+    @Data
+    public static class Idle {
+        /** IDLE dinleyicisi açık mı (periyodik tarama her durumda çalışır) */
+        private boolean  enabled      = false;
+        private Duration minBackoff   = Duration.ofSeconds(2);
+        private Duration maxBackoff   = Duration.ofMinutes(5);
+        /** Sunucu IDLE desteklemiyorsa NOOP ile yoklama aralığı */
+        private Duration noopInterval = Duration.ofSeconds(30);
+    }
+
+    public Store connect() throws MessagingException {
+        Properties p = new Properties();
+        // gövde FETCH'leri \Seen koymasın; bayraklar DB commit'inden sonra toplu atılır
+        p.put("mail." + protocol + ".peek", "true");
+        Store store = Session.getInstance(p).getStore(protocol);
+        store.connect(host, port, user, password);
+        return store;
+    }
+}
@@ -0,0 +1,32 @@
+package com.osman.traviaskbot.controller;
+
+import com.osman.traviaskbot.entity.GeocodeFailure;
+import com.osman.traviaskbot.service.NegativeGeocodeCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/** Negatif geocode önbelleği: çözülemeyen pickup'ları listeler / siler */
+@RestController
+@RequestMapping("/api/geocode/failures")
+@RequiredArgsConstructor
+public class GeocodeFailureController {
+
+    private final NegativeGeocodeCache failures;
+
+    @GetMapping
+    public List<GeocodeFailure> list() {
+        return failures.list();
+    }
+
+    /** {@code address} verilirse tek kayıt, yoksa hepsi silinir */
+    @DeleteMapping
+    public ResponseEntity<Map<String,Object>> purge(@RequestParam(required = false) String address) {
+        if (address == null) return ResponseEntity.ok(Map.of("purged", failures.purgeAll()));
+        if (!failures.purge(address)) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(Map.of("purged", 1));
+    }
+}
@@ -0,0 +1,30 @@
+package com.osman.traviaskbot.controller;
+
+import com.osman.traviaskbot.service.NegativeGeocodeCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/** Admin ekranı: çözülemeyen pickup adresleri, düzeltilenler buradan silinir */
+@Controller
+@RequiredArgsConstructor
+public class GeocodeFailurePageController {
+
+    private final NegativeGeocodeCache failures;
+
+    @GetMapping("/geocode-failures")
+    public String showFailures(Model model) {
+        model.addAttribute("failures", failures.list());
+        return "geocode-failures";
+    }
+
+    @PostMapping("/geocode-failures/purge")
+    public String purge(@RequestParam(required = false) String address) {
+        if (address == null) failures.purgeAll();
+        else failures.purge(address);
+        return "redirect:/geocode-failures";
+    }
+}
@@ -4,9 +4,13 @@ package com.osman.traviaskbot.controller;
 import com.osman.traviaskbot.dto.ReservationDto;
 import com.osman.traviaskbot.entity.Reservation;
 import com.osman.traviaskbot.entity.Route;
+import com.osman.traviaskbot.service.IngestJob;
+import com.osman.traviaskbot.service.IngestJobCoordinator;
+import com.osman.traviaskbot.service.ReservationDatesTouchedEvent;
 import com.osman.traviaskbot.service.ReservationProcessor;
 import com.osman.traviaskbot.repository.ReservationRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,9 +19,12 @@ import java.time.LocalDate;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.springframework.ui.Model;
 
@@ -29,23 +36,70 @@ public class ReservationController {
 
     private final ReservationRepository reservationRepo;
     private final ReservationProcessor processor;
+    private final ApplicationEventPublisher events;
+    private final IngestJobCoordinator jobs;
 
     // listeleme: date filtresi artık LocalDate
 
 
     // manuel tetikleme için artık GET de kullanabilirsiniz
+    // tarama arka planda; çalışan bir tarama varsa tetik bekleyen işe katılır
     @GetMapping("/trigger")
-    public Map<String, String> triggerGet() {
-        processor.processReservations(); // sadece yeni rezervasyonları ekle
-        return Map.of("status", "started");
+    public Map<String, Object> triggerGet() {
+        IngestJob job = jobs.trigger("api");
+        return Map.of(
+                "status", job.getState() == IngestJob.State.QUEUED ? "queued" : "started",
+                "jobId", job.getId());
     }
 
     // (isteğe bağlı: orijinal POST method’u da kalsın)
     @PostMapping("/trigger")
-    public Map<String,String> triggerPost() {
+    public Map<String, Object> triggerPost() {
         return triggerGet();
     }
 
+    @GetMapping("/jobs")
+    public List<Map<String, Object>> listJobs() {
+        return jobs.recent().stream().map(IngestJob::toMap).toList();
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> jobStatus(@PathVariable long jobId) {
+        return jobs.find(jobId)
+                .map(job -> ResponseEntity.ok(job.toMap()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+
+    // ham mail arşivini IMAP'siz yeniden işler; dryRun=true → sadece parse, yazma yok.
+    // taramalarla sıralı arka plan işi; ilerleme /jobs/{jobId}'den izlenir
+    @PostMapping("/replay")
+    public Map<String, Object> replayArchive(@RequestParam(defaultValue = "true") boolean dryRun) {
+        IngestJob job = jobs.replay(!dryRun, "api");
+        return Map.of(
+                "status", job.getState() == IngestJob.State.QUEUED ? "queued" : "started",
+                "jobId", job.getId());
+    }
+
+    // unparsed_mails tablosunu güncel parser ile baştan dener; taramalarla sıralı arka plan işi
+    @PostMapping("/unparsed/reprocess")
+    public Map<String, Object> reprocessUnparsed() {
+        IngestJob job = jobs.reprocess("api");
+        return Map.of(
+                "status", job.getState() == IngestJob.State.QUEUED ? "queued" : "started",
+                "jobId", job.getId());
+    }
+
+    // son yeniden işleme işinin durumu; hiç çalışmadıysa boş
+    @GetMapping("/unparsed/reprocess")
+    public Map<String, Object> reprocessStatus() {
+        return jobs.recent().stream()
+                .filter(j -> j.getKind() == IngestJob.Kind.REPROCESS)
+                .findFirst()
+                .map(IngestJob::toMap)
+                .orElse(Map.of());
+    }
+
 
     @PostMapping("/{id}/cancel")
     public ResponseEntity<String> cancelReservation(@PathVariable Long id) {
@@ -54,6 +108,7 @@ public class ReservationController {
             reservation.setCancelledAt(Instant.now());
             reservation.setCancelledBy("system"); // İleride giriş yapan kullanıcı adı da olabilir
             reservationRepo.save(reservation);
+            touched(reservation.getDate());
             return ResponseEntity.ok("Reservation cancelled successfully.");
         }).orElse(ResponseEntity.notFound().build());
     }
@@ -65,6 +120,7 @@ public class ReservationController {
             reservation.setCancelledAt(null);
             reservation.setCancelledBy(null);
             reservationRepo.save(reservation);
+            touched(reservation.getDate());
             return ResponseEntity.ok("Reservation un-cancelled successfully.");
         }).orElse(ResponseEntity.notFound().build());
     }
@@ -86,6 +142,8 @@ public class ReservationController {
             return Map.of("status", "error", "message", "Reservation not found");
         }
 
+        LocalDate oldDate = res.getDate();
+
         // 2. Gelen verilerle güncelle (hangi alanlar gelirse onları değiştir)
         if (updates.containsKey("customer")) {
             res.setCustomer((String) updates.get("customer"));
@@ -109,6 +167,7 @@ public class ReservationController {
 
         // 3. Değişiklikleri kaydet
         reservationRepo.save(res);
+        touched(oldDate, res.getDate());
 
         return Map.of("status", "success", "message", "Reservation updated");
     }
@@ -125,11 +184,13 @@ public class ReservationController {
 
     @DeleteMapping("/{id}")
     public Map<String, String> deleteReservation(@PathVariable Long id) {
-        if (!reservationRepo.existsById(id)) {
+        Reservation res = reservationRepo.findById(id).orElse(null);
+        if (res == null) {
             return Map.of("status", "error", "message", "Reservation not found");
         }
 
         reservationRepo.deleteById(id);
+        touched(res.getDate());
         return Map.of("status", "success", "message", "Reservation deleted");
     }
 
@@ -168,6 +229,7 @@ public class ReservationController {
         res.setStatus(dto.getStatus() != null ? dto.getStatus() : "confirmed");
 
         reservationRepo.save(res);
+        touched(res.getDate());
 
         return Map.of("status", "success", "id", String.valueOf(res.getId()));
     }
@@ -189,6 +251,7 @@ public class ReservationController {
         res.setReference((String) request.get("reference")); // isteğe bağlı, varsa alınacak
 
         reservationRepo.save(res);
+        touched(res.getDate());
 
         return Map.of(
                 "status", "success",
@@ -206,8 +269,14 @@ public class ReservationController {
         res.setTime(dto.getTime());
         res.setStatus("confirmed"); // Yeni eklenenler confirmed olsun
         reservationRepo.save(res);
+        touched(res.getDate());
         return Map.of("status", "success", "id", res.getId().toString());
     }
 
 
+    // rota planı önbelleği sadece bu günleri kapsayan planları yeniden çözer
+    private void touched(LocalDate... dates) {
+        Set<LocalDate> days = Arrays.stream(dates).filter(Objects::nonNull).collect(Collectors.toSet());
+        if (!days.isEmpty()) events.publishEvent(new ReservationDatesTouchedEvent(days));
+    }
 }
@@ -3,9 +3,11 @@ package com.osman.traviaskbot.controller;
 import com.osman.traviaskbot.entity.Reservation;
 import com.osman.traviaskbot.entity.Route;
 import com.osman.traviaskbot.repository.ReservationRepository;
+import com.osman.traviaskbot.service.ReservationDatesTouchedEvent;
 import com.osman.traviaskbot.service.ReservationOptimizer; // ❗️Yeni eklenen import
 import com.osman.traviaskbot.service.ReservationProcessor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -13,7 +15,9 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +30,7 @@ public class ReservationPageController {
     private final ReservationRepository reservationRepository;
     private final ReservationOptimizer optimizer;
     private final ReservationProcessor processor;
+    private final ApplicationEventPublisher events;
 
 
     @GetMapping("/vrp-results")
@@ -71,7 +76,13 @@ public class ReservationPageController {
 
     @PostMapping("/reservations/update")
     public String updateReservation(@ModelAttribute Reservation reservation) {
+        Set<LocalDate> touched = new HashSet<>();
+        if (reservation.getId() != null)
+            reservationRepository.findById(reservation.getId()).ifPresent(old -> touched.add(old.getDate()));
         reservationRepository.save(reservation);
+        touched.add(reservation.getDate());
+        touched.remove(null);
+        if (!touched.isEmpty()) events.publishEvent(new ReservationDatesTouchedEvent(touched));
         return "redirect:/reservations";
     }
 
@@ -1,7 +1,11 @@
 package com.osman.traviaskbot.controller;
 
 import com.osman.traviaskbot.dto.ReservationDto;
+import com.osman.traviaskbot.service.GeocodingService;
+import com.osman.traviaskbot.service.RegionLocator;
 import com.osman.traviaskbot.service.ReservationProcessor;
+import com.osman.traviaskbot.service.RoutePlanCache;
+import com.osman.traviaskbot.service.RoutePlanCache.Plan;
 import com.osman.traviaskbot.service.RouteService;
 import com.osman.traviaskbot.service.VrpService;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +18,7 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/routes")
@@ -40,9 +45,8 @@ public class RouteController {
     private final ReservationProcessor processor;
     private final RouteService routeService;
     private final VrpService   vrpService;
-
-    /* lastStarts – mapsUrls için */
-    private List<double[]> lastStarts = Collections.emptyList();
+    private final RoutePlanCache planCache;
+    private final RegionLocator  regionLocator;
 
     /* ════════════════════════════════════════════════
        1)  /optimized   — tur & tarih bazında VRP
@@ -53,19 +57,25 @@ public class RouteController {
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
             @RequestParam(required = false) String[] tours      // ?tours=Land...,Suluada...
     ) {
+        Map<String, Map<String, List<String>>> all = new LinkedHashMap<>();
+        plans(after, tours).forEach((tour, plan) -> all.put(tour, plan.routes()));
+        return all;
+    }
+
+    /* tur → plan; değişmeyen günlerin planları önbellekten gelir */
+    private Map<String, Plan> plans(LocalDate after, String[] tours) {
         List<String> wantedTours = (tours == null || tours.length == 0)
                 ? List.of("From Antalya, Alanya, Kemer: The Land of Legends Night Show",
                 "Turkish Maldives: Suluada Day Trip + Lunch & Swim")
                 : Arrays.asList(tours);
 
-        Map<String, Map<String, List<String>>> all = new LinkedHashMap<>();
-
+        Map<String, Plan> all = new LinkedHashMap<>();
         for (String tour : wantedTours) {
-            var dtos = processor.fetchDtos(after, tour);
-            if (dtos.isEmpty()) continue;
-
-            Map<String,List<String>> vrp = solveVrpForDtos(dtos);
-            all.put(tour, vrp);
+            Plan plan = planCache.get(after, tour, () -> {
+                var dtos = processor.fetchDtos(after, tour);
+                return dtos.isEmpty() ? Plan.EMPTY : solveVrpForDtos(dtos);
+            });
+            if (!plan.routes().isEmpty()) all.put(tour, plan);
         }
         return all;
     }
@@ -79,16 +89,15 @@ public class RouteController {
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
             @RequestParam(required = false) String[] tours
     ) {
-        var routes = optimizedRoutes(after, tours);
         Map<String, Map<String,String>> urls = new LinkedHashMap<>();
 
-        routes.forEach((tour, drivers) -> {
+        plans(after, tours).forEach((tour, plan) -> {
             Map<String,String> tourUrls = new LinkedHashMap<>();
-            drivers.forEach((driver, picks) -> {
+            plan.routes().forEach((driver, picks) -> {
 
                 int idx = Integer.parseInt(driver.replace("driver", "")) - 1;
 
-                String origin      = encodeCoord(lastStarts.get(idx));
+                String origin      = encodeCoord(plan.starts().get(idx));
                 String destination = URLEncoder.encode(LAND_OF_LEGENDS, StandardCharsets.UTF_8);
 
                 String waypointStr = picks.stream().distinct()
@@ -120,36 +129,52 @@ public class RouteController {
     }
 
     /* ─────────── HELPER: tek tur için VRP çözer ─────────── */
-    private Map<String,List<String>> solveVrpForDtos(List<ReservationDto> dtos) {
+    private Plan solveVrpForDtos(List<ReservationDto> dtos) {
+
+        /* (a+b) Hub + pickup adresleri tek seferde, paralel geocode */
+        GeocodingService.Batch geo;
+        try {
+            geo = routeService.toLatLngAll(Stream.concat(DRIVER_ADDRS.stream(),
+                    dtos.stream().map(ReservationDto::getPickup)).toList());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return new Plan(Map.of(), List.of(), false);
+        }
 
         /* (a) Şoför hubları */
         List<double[]> driverStarts = new ArrayList<>();
         List<Boolean> isKemerDriver = new ArrayList<>();
         for (String addr : DRIVER_ADDRS) {
-            try {
-                driverStarts.add(routeService.toLatLng(addr));
-                isKemerDriver.add(addr.toLowerCase().contains("kemer"));
-            } catch (Exception e) {
-                log.error("Driver geocode failed: {}", addr, e);
+            double[] ll = geo.coords().get(addr);
+            if (ll == null) {
+                log.error("Driver geocode failed: {} ({})", addr, geo.reason(addr));
+                continue;
             }
+            driverStarts.add(ll);
+            isKemerDriver.add(regionLocator.regionOf(ll) == Region.KEMER);
         }
         int hubCount = driverStarts.size();
+        boolean complete = hubCount == DRIVER_ADDRS.size();
 
         /* (b) Pickup + pax + bölge kodları */
-        List<double[]> pickups = new ArrayList<>();
-        List<Integer>  paxList = new ArrayList<>();
-        List<Integer>  regions = new ArrayList<>();
+        List<double[]>       pickups = new ArrayList<>();
+        List<ReservationDto> placed  = new ArrayList<>();     // node index → dto
+        List<Integer>        paxList = new ArrayList<>();
+        List<Integer>        regions = new ArrayList<>();
 
         for (ReservationDto d : dtos) {
-            try {
-                pickups.add(routeService.toLatLng(d.getPickup()));
-                paxList.add(d.getAdults() + d.getChildren());
-                regions.add(regionCode(d.getDistrict()));
-            } catch (Exception ex) {
-                log.warn("⛔ Geocode atlandı: {}", d.getPickup());
+            double[] ll = geo.coords().get(d.getPickup());
+            if (ll == null) {
+                log.warn("⛔ Geocode atlandı: {} ({})", d.getPickup(), geo.reason(d.getPickup()));
+                complete = false;
+                continue;
             }
+            pickups.add(ll);
+            placed.add(d);
+            paxList.add(d.getAdults() + d.getChildren());
+            regions.add(regionLocator.regionOf(ll).ordinal());
         }
-        if (pickups.isEmpty()) return Collections.emptyMap();
+        if (pickups.isEmpty()) return new Plan(Map.of(), List.of(), false);
 
         /* (c) Araç havuzu → yolcu sayısına göre kopya oluştur */
         int totalPax = paxList.stream().mapToInt(Integer::intValue).sum();
@@ -167,8 +192,6 @@ public class RouteController {
         var sol = vrpService.solveVrp(
                 starts, pickups, paxList, regions, isKemerDriver, starts.size());
 
-        this.lastStarts = new ArrayList<>(starts);   // mapsUrls için
-
         /* (e) Index → pickup metni */
         int offset = starts.size();
         Map<String,List<String>> result = new LinkedHashMap<>();
@@ -176,17 +199,11 @@ public class RouteController {
             List<String> picks = new ArrayList<>();
             for (int idx : nodes)
                 if (idx >= offset && idx < offset + pickups.size())
-                    picks.add(dtos.get(idx - offset).getPickup());
+                    picks.add(placed.get(idx - offset).getPickup());
             if (!picks.isEmpty()) result.put("driver" + (v + 1), picks);
         });
-        return result;
-    }
-
-    private int regionCode(String dist) {
-        if (List.of("Kemer","Beldibi","Çamyuva","Göynük").contains(dist)) return Region.KEMER.ordinal();
-        if (List.of("Side","Sorgun","Evrenseki","Çolaklı","Kızılot","Kızılğaç","Manavgat").contains(dist))
-            return Region.SIDE.ordinal();
-        return Region.OTHER.ordinal();
+        // eksik plan önbelleğe girmez; düşen adres sonraki istekte tekrar denenir
+        return new Plan(result, List.copyOf(starts), complete);   // starts → mapsUrls için
     }
 
     private static String encodeCoord(double[] ll) {
@@ -0,0 +1,35 @@
+package com.osman.traviaskbot.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Çözülemeyen pickup adresi (negatif geocode önbelleği). {@code expiresAt}
+ * geçene kadar aynı adres Google'a gönderilmez; personel adresi düzeltince
+ * kaydı admin ekranından siler.
+ */
+@Entity
+@Table(name = "geocode_failures")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeocodeFailure {
+
+    /** normalize adres (trim + tek boşluk, geocode_cache ile aynı anahtar) */
+    @Id
+    @Column(length = 512)
+    private String address;
+
+    /** "ZERO_RESULTS" ya da "INVALID_ADDRESS" */
+    private String reason;
+
+    private int attempts;
+
+    private Instant firstFailedAt;
+    private Instant lastFailedAt;
+    private Instant expiresAt;
+}
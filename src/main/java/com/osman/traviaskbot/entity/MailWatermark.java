@@ -0,0 +1,28 @@
+package com.osman.traviaskbot.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Klasör başına IMAP okuma noktası.
+ * UIDVALIDITY değişmediği sürece lastUid'den büyük UID'ler yeni mail demektir.
+ */
+@Entity
+@Table(name = "mail_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailWatermark {
+
+    @Id
+    private String folder;
+
+    private long uidValidity;
+    private long lastUid;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,40 @@
+package com.osman.traviaskbot.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Bilinen bir pickup noktası (çoğunlukla otel). Aynı otelin farklı yazılışları
+ * {@code nameKey} üzerinden trigram benzerliğiyle bu kayda çözülür.
+ */
+@Entity
+@Table(name = "pickup_points")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PickupPoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** ilk görülen ham yazılış */
+    private String name;
+
+    /** normalize anahtar (aksansız, küçük harf, dolgu kelimeleri atılmış) */
+    @Column(unique = true, nullable = false)
+    private String nameKey;
+
+    private String district;
+    private double lat;
+    private double lng;
+
+    /** kaydın kaynağı: "geocode" (Google'dan öğrenildi) ya da "manual" */
+    private String source;
+
+    private Instant createdAt;
+}
@@ -7,7 +7,8 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "reservations")
+@Table(name = "reservations",
+       uniqueConstraints = @UniqueConstraint(name = "uk_reservations_reference", columnNames = "reference"))
 @Data
 public class Reservation {
 
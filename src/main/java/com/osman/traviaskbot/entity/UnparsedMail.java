@@ -8,7 +8,8 @@ import lombok.NoArgsConstructor;
 import java.time.Instant;
 
 @Entity
-@Table(name = "unparsed_mails")
+@Table(name = "unparsed_mails",
+       indexes = @Index(name = "ix_unparsed_mails_reference", columnList = "reference"))
 @Data
 @NoArgsConstructor @AllArgsConstructor
 public class UnparsedMail {
@@ -17,4 +18,15 @@ public class UnparsedMail {
     @Column(length = 4000)      // gövde uzun olabilir
     private String body;
     private Instant receivedAt;
+    /** gönderen adresi – yeniden işlemede doğru çözücüyü seçmek için */
+    private String sender;
+    /**
+     * Sadece bekleyen değişiklik / iptal mailinde dolu: rezervasyonu henüz
+     * DB'de olmayan referans. Rezervasyon gelince mail otomatik uygulanır.
+     */
+    private String reference;
+
+    public UnparsedMail(Long id, String body, Instant receivedAt, String sender) {
+        this(id, body, receivedAt, sender, null);
+    }
 }
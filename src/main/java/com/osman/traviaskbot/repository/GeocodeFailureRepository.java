@@ -0,0 +1,17 @@
+package com.osman.traviaskbot.repository;
+
+import com.osman.traviaskbot.entity.GeocodeFailure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface GeocodeFailureRepository extends JpaRepository<GeocodeFailure, String> {
+    List<GeocodeFailure> findByExpiresAtAfter(Instant now);
+
+    @Modifying
+    @Transactional
+    long deleteByExpiresAtBefore(Instant now);
+}
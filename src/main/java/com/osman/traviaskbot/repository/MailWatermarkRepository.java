@@ -0,0 +1,6 @@
+package com.osman.traviaskbot.repository;
+
+import com.osman.traviaskbot.entity.MailWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MailWatermarkRepository extends JpaRepository<MailWatermark, String> { }
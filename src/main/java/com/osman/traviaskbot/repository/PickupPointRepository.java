@@ -0,0 +1,8 @@
+package com.osman.traviaskbot.repository;
+
+import com.osman.traviaskbot.entity.PickupPoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PickupPointRepository extends JpaRepository<PickupPoint, Long> {
+    boolean existsByNameKey(String nameKey);
+}
@@ -0,0 +1,185 @@
+package com.osman.traviaskbot.repository;
+
+import com.osman.traviaskbot.entity.Reservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Mail ingest'i için toplu, idempotent rezervasyon yazımı.
+ * <p>
+ * IDENTITY id yüzünden Hibernate insert'leri batch'leyemez; burada tek
+ * JDBC batch ile {@code INSERT … ON CONFLICT (reference) DO NOTHING}
+ * gönderilir. Çift referanslar sessizce atlanır, exists sorgusuna gerek kalmaz.
+ * <p>
+ * Değişiklik ve iptaller de batch başına tek ifadeyle, referans üzerindeki
+ * unique indeksten yürür ({@code reference = ANY(?)} / {@code unnest}).
+ * Her yöntem etkilenen rezervasyon tarihlerini (eski ve yeni) döner.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReservationBatchWriter {
+
+    private static final String INSERT = """
+            INSERT INTO reservations
+                (reference, status, tour, option_name, date, time,
+                 adults, children, customer, phone, pickup, district)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (reference) DO NOTHING
+            """;
+
+    /** null alan → mevcut değer korunur; "old" self-join'i güncelleme öncesi tarihi döndürür */
+    private static final String APPLY_CHANGES = """
+            UPDATE reservations r SET
+                date     = COALESCE(v.date,     r.date),
+                time     = COALESCE(v.time,     r.time),
+                adults   = COALESCE(v.adults,   r.adults),
+                children = COALESCE(v.children, r.children),
+                phone    = COALESCE(v.phone,    r.phone),
+                pickup   = COALESCE(v.pickup,   r.pickup),
+                district = COALESCE(v.district, r.district)
+            FROM unnest(?::text[], ?::date[], ?::time[], ?::int[], ?::int[], ?::text[], ?::text[], ?::text[])
+                     AS v(reference, date, time, adults, children, phone, pickup, district),
+                 reservations old
+            WHERE r.reference = v.reference AND old.id = r.id
+            RETURNING old.date, r.date
+            """;
+
+    private static final String CANCEL = """
+            UPDATE reservations
+               SET status = 'cancelled', cancelled_at = now(), cancelled_by = ?
+             WHERE reference = ANY(?) AND status <> 'cancelled'
+            RETURNING date
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    /** @return gerçekten eklenen satırlar; eksik kalanlar çift referanslardır */
+    @Transactional
+    public List<Reservation> insertIgnoringDuplicates(List<Reservation> rows) {
+        if (rows.isEmpty()) return List.of();
+        int[][] counts = jdbc.batchUpdate(INSERT, rows, rows.size(), (ps, r) -> {
+            ps.setString(1, r.getReference());
+            ps.setString(2, r.getStatus());
+            ps.setString(3, r.getTour());
+            ps.setString(4, r.getOptionName());
+            ps.setObject(5, r.getDate());
+            ps.setObject(6, r.getTime());
+            ps.setInt(7, r.getAdults());
+            ps.setInt(8, r.getChildren());
+            ps.setString(9, r.getCustomer());
+            ps.setString(10, r.getPhone());
+            ps.setString(11, r.getPickup());
+            ps.setString(12, r.getDistrict());
+        });
+        List<Reservation> inserted = new ArrayList<>(rows.size());
+        int i = 0;
+        for (int[] chunk : counts)
+            for (int c : chunk) {
+                if (c > 0) inserted.add(rows.get(i));
+                i++;
+            }
+        return inserted;
+    }
+
+    /**
+     * Değişiklik maillerini referansa göre uygular. {@code changes} içinde
+     * her referans en fazla bir kez olmalı.
+     *
+     * @return güncellenen satır sayısı ve etkilenen tarihler
+     */
+    @Transactional
+    public Applied applyChanges(List<Reservation> changes) {
+        if (changes.isEmpty()) return Applied.NONE;
+        int n = changes.size();
+        Object[] refs = new Object[n], dates = new Object[n], times = new Object[n],
+                 adults = new Object[n], children = new Object[n],
+                 phones = new Object[n], pickups = new Object[n], districts = new Object[n];
+        for (int i = 0; i < n; i++) {
+            Reservation c = changes.get(i);
+            refs[i]      = c.getReference();
+            dates[i]     = c.getDate() == null ? null : Date.valueOf(c.getDate());
+            times[i]     = c.getTime() == null ? null : Time.valueOf(c.getTime());
+            adults[i]    = c.getAdults() < 0 ? null : c.getAdults();
+            children[i]  = c.getChildren() < 0 ? null : c.getChildren();
+            phones[i]    = c.getPhone();
+            pickups[i]   = c.getPickup();
+            districts[i] = c.getDistrict();
+        }
+        Set<LocalDate> touched = new HashSet<>();
+        List<Integer> updated = jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(APPLY_CHANGES);
+            ps.setArray(1, array(con, "text", refs));
+            ps.setArray(2, array(con, "date", dates));
+            ps.setArray(3, array(con, "time", times));
+            ps.setArray(4, array(con, "int4", adults));
+            ps.setArray(5, array(con, "int4", children));
+            ps.setArray(6, array(con, "text", phones));
+            ps.setArray(7, array(con, "text", pickups));
+            ps.setArray(8, array(con, "text", districts));
+            return ps;
+        }, (rs, i) -> {
+            addDate(touched, rs.getDate(1));
+            addDate(touched, rs.getDate(2));
+            return i;
+        });
+        return new Applied(updated.size(), touched);
+    }
+
+    /** Verilen referanslardan tabloda olanlar – tek sorgu, unique indeks üzerinden */
+    @Transactional(readOnly = true)
+    public Set<String> existingReferences(List<String> references) {
+        if (references.isEmpty()) return Set.of();
+        return new HashSet<>(jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT reference FROM reservations WHERE reference = ANY(?)");
+            ps.setArray(1, array(con, "text", references.toArray()));
+            return ps;
+        }, (rs, i) -> rs.getString(1)));
+    }
+
+    /** Referansları iptal eder; zaten iptal olanlara dokunmaz. */
+    @Transactional
+    public Applied cancelByReference(List<String> references, String cancelledBy) {
+        if (references.isEmpty()) return Applied.NONE;
+        Set<LocalDate> touched = new HashSet<>();
+        List<Integer> updated = jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(CANCEL);
+            ps.setString(1, cancelledBy);
+            ps.setArray(2, array(con, "text", references.toArray()));
+            return ps;
+        }, (rs, i) -> {
+            addDate(touched, rs.getDate(1));
+            return i;
+        });
+        return new Applied(updated.size(), touched);
+    }
+
+    /** @param rows gerçekten güncellenen satır; @param dates bu satırların eski + yeni tarihleri */
+    public record Applied(int rows, Set<LocalDate> dates) {
+        static final Applied NONE = new Applied(0, Set.of());
+    }
+
+    /* ————————————————— helpers ————————————————— */
+
+    private static Array array(Connection con, String type, Object[] values) throws SQLException {
+        return con.createArrayOf(type, values);
+    }
+
+    private static void addDate(Set<LocalDate> into, Date d) {
+        if (d != null) into.add(d.toLocalDate());
+    }
+}
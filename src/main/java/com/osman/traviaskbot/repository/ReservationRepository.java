@@ -2,6 +2,8 @@ package com.osman.traviaskbot.repository;
 
 import com.osman.traviaskbot.entity.Reservation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -10,10 +12,21 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
 
     boolean existsByReference(String reference);
 
-    List<Reservation> findByDateGreaterThanEqualOrderByDateAscTimeAsc(LocalDate after);
+    /** VRP girdisi: iptal edilenler rotaya girmez (status'u boş, elle girilmiş kayıtlar girer) */
+    @Query("""
+            SELECT r FROM Reservation r
+             WHERE r.date >= :after AND (r.status IS NULL OR r.status <> 'cancelled')
+             ORDER BY r.date, r.time
+            """)
+    List<Reservation> findActiveFrom(@Param("after") LocalDate after);
 
     // 👇 VRP’de tur filtrelemek için
-    List<Reservation> findByDateGreaterThanEqualAndTourOrderByDateAscTimeAsc(LocalDate after, String tour);
+    @Query("""
+            SELECT r FROM Reservation r
+             WHERE r.date >= :after AND r.tour = :tour AND (r.status IS NULL OR r.status <> 'cancelled')
+             ORDER BY r.date, r.time
+            """)
+    List<Reservation> findActiveFromByTour(@Param("after") LocalDate after, @Param("tour") String tour);
 
     // Diğer hazır sorgular
     List<Reservation> findByStatusOrderByDateAscTimeAsc(String status);
@@ -1,6 +1,17 @@
 package com.osman.traviaskbot.repository;
 
 import com.osman.traviaskbot.entity.UnparsedMail;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface UnparsedMailRepository extends JpaRepository<UnparsedMail, Long> { }
+import java.util.Collection;
+import java.util.List;
+
+public interface UnparsedMailRepository extends JpaRepository<UnparsedMail, Long> {
+
+    /** keyset sayfalama: OFFSET yok, her sayfa id indeksinden okunur */
+    List<UnparsedMail> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /** rezervasyonu yeni eklenen referanslara bekleyen değişiklik / iptal mailleri, geliş sırasıyla */
+    List<UnparsedMail> findByReferenceInOrderByIdAsc(Collection<String> references);
+}
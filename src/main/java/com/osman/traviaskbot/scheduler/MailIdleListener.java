@@ -0,0 +1,142 @@
+package com.osman.traviaskbot.scheduler;
+
+import com.osman.traviaskbot.config.ImapProperties;
+import com.osman.traviaskbot.service.IngestJobCoordinator;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Folder;
+import jakarta.mail.Store;
+import jakarta.mail.event.MessageCountAdapter;
+import jakarta.mail.event.MessageCountEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.imap.IMAPFolder;
+import org.eclipse.angus.mail.imap.IMAPStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * IMAP IDLE ile INBOX'ı dinler; yeni mail gelir gelmez tarama tetikler.
+ * Bağlantı koparsa üstel bekleme ile yeniden bağlanır. 30 dakikalık
+ * {@link ReservationScheduler} yine emniyet ağı olarak çalışır.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.imap.idle.enabled", havingValue = "true")
+@Slf4j
+public class MailIdleListener {
+
+    private final ImapProperties props;
+    private final Runnable       onNewMail;
+
+    private final ExecutorService worker  = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "mail-idle-worker");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean pending   = new AtomicBoolean();
+    private volatile boolean    running;
+    private volatile Thread     loop;
+    private volatile Store      store;
+
+    @Autowired
+    public MailIdleListener(ImapProperties props, IngestJobCoordinator jobs) {
+        this(props, () -> jobs.trigger("idle"));
+    }
+
+    public MailIdleListener(ImapProperties props, Runnable onNewMail) {
+        this.props     = props;
+        this.onNewMail = onNewMail;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        loop = new Thread(this::runLoop, "mail-idle");
+        loop.setDaemon(true);
+        loop.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        Store s = store;
+        if (s != null) {
+            try { s.close(); } catch (Exception ignore) { /* zaten kapanıyor */ }
+        }
+        if (loop != null) loop.interrupt();
+        worker.shutdownNow();
+    }
+
+    /* ————————————————— IDLE döngüsü ————————————————— */
+
+    private void runLoop() {
+        long backoff = props.getIdle().getMinBackoff().toMillis();
+        long maxBackoff = props.getIdle().getMaxBackoff().toMillis();
+
+        while (running) {
+            try (Store s = props.connect()) {
+                store = s;
+                IMAPFolder inbox = (IMAPFolder) s.getFolder(props.getFolder());
+                inbox.open(Folder.READ_ONLY);
+                inbox.addMessageCountListener(new MessageCountAdapter() {
+                    @Override
+                    public void messagesAdded(MessageCountEvent e) {
+                        log.info("📨 IDLE: {} yeni mail", e.getMessages().length);
+                        signal();
+                    }
+                });
+
+                boolean idleSupported = ((IMAPStore) s).hasCapability("IDLE");
+                log.info("📡 IMAP {} dinleniyor (IDLE={})", props.getFolder(), idleSupported);
+                backoff = props.getIdle().getMinBackoff().toMillis();
+
+                // Bağlantı yokken gelenleri kaçırmamak için her bağlanışta bir tarama
+                signal();
+
+                while (running && inbox.isOpen()) {
+                    if (idleSupported) {
+                        inbox.idle();               // sunucu bir şey bildirene kadar bloklar
+                    } else {
+                        Thread.sleep(props.getIdle().getNoopInterval().toMillis());
+                        inbox.getMessageCount();    // NOOP → yeni mail event'i
+                    }
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception ex) {
+                if (!running) return;
+                log.warn("⚠️ IMAP IDLE bağlantısı koptu, {} ms sonra yeniden denenecek: {}",
+                        backoff, ex.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, maxBackoff);
+            } finally {
+                store = null;
+            }
+        }
+    }
+
+    /** Peş peşe gelen bildirimleri tek taramada birleştirir */
+    private void signal() {
+        if (!pending.compareAndSet(false, true)) return;
+        worker.execute(() -> {
+            pending.set(false);
+            try {
+                onNewMail.run();
+            } catch (Exception ex) {
+                log.error("⛔ IDLE tetiklemeli tarama hatası", ex);
+            }
+        });
+    }
+}
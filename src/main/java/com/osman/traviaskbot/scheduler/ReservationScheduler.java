@@ -1,6 +1,6 @@
 package com.osman.traviaskbot.scheduler;
 
-import com.osman.traviaskbot.service.ReservationProcessor;
+import com.osman.traviaskbot.service.IngestJobCoordinator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -11,12 +11,11 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class ReservationScheduler {
 
-    private final ReservationProcessor processor;
+    private final IngestJobCoordinator jobs;
 
-    /** 30 dakikada bir çalışır */
-    @Scheduled(fixedRateString = "PT30M")
+    /** 30 dakikada bir çalışır – IDLE açıkken kaçan mailler için emniyet ağı */
+    @Scheduled(fixedRateString = "${ingest.poll-interval:PT30M}")
     public void periodic() {
-        log.info("⏰ Planlı toplama başladı");
-        processor.processReservations();
+        log.info("⏰ Planlı toplama → iş #{}", jobs.trigger("schedule").getId());
     }
 }
@@ -0,0 +1,117 @@
+package com.osman.traviaskbot.service;
+
+import com.osman.traviaskbot.entity.GeocodeCache;
+import com.osman.traviaskbot.repository.GeocodeCacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Adres → koordinat için iki katmanlı, okuma-sırasında-dolan önbellek.
+ * <ul>
+ *   <li>L1: süreç içi LRU ({@code geocode.cache.l1-size}), ağ ve DB yok</li>
+ *   <li>L2: {@code geocode_cache} tablosu; yeniden başlatmada da korunur</li>
+ * </ul>
+ * L2'de bulunan kayıt L1'e taşınır; Google'dan gelen sonuç iki katmana da
+ * yazılır. İsabet/ıska sayıları {@code geocode.cache.requests} metriğinde.
+ */
+@Service
+@Slf4j
+public class GeocodeCacheService {
+
+    /** geocode_cache.address kolonu */
+    private static final int MAX_ADDRESS = 255;
+
+    private final GeocodeCacheRepository repo;
+    private final Map<String,double[]>   l1;
+
+    private final Counter l1Hit, l2Hit, miss;
+
+    public GeocodeCacheService(GeocodeCacheRepository repo,
+                               MeterRegistry meters,
+                               @Value("${geocode.cache.l1-size:5000}") int l1Size) {
+        this.repo = repo;
+        this.l1   = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String,double[]> eldest) {
+                return size() > l1Size;
+            }
+        };
+        this.l1Hit = meters.counter("geocode.cache.requests", "tier", "l1", "result", "hit");
+        this.l2Hit = meters.counter("geocode.cache.requests", "tier", "l2", "result", "hit");
+        this.miss  = meters.counter("geocode.cache.requests", "tier", "l2", "result", "miss");
+        Gauge.builder("geocode.cache.l1.size", this, GeocodeCacheService::localSize).register(meters);
+    }
+
+    /** @return {@code [lat, lng]}; iki katmanda da yoksa boş */
+    public Optional<double[]> get(String address) {
+        String key = key(address);
+        if (key.isEmpty()) return Optional.empty();
+
+        double[] ll;
+        synchronized (l1) {
+            ll = l1.get(key);
+        }
+        if (ll != null) {
+            l1Hit.increment();
+            return Optional.of(ll.clone());
+        }
+
+        GeocodeCache row = null;
+        if (key.length() <= MAX_ADDRESS) {
+            try {
+                row = repo.findByAddress(key);
+            } catch (Exception ex) {
+                // DB yoksa da çalışsın; sadece Google'a gidilir
+                log.warn("⚠️ geocode_cache okunamadı: {}", ex.getMessage());
+            }
+        }
+        if (row == null) {
+            miss.increment();
+            return Optional.empty();
+        }
+        l2Hit.increment();
+        ll = new double[] { row.getLat(), row.getLng() };
+        synchronized (l1) {
+            l1.put(key, ll);
+        }
+        return Optional.of(ll.clone());
+    }
+
+    /** Google'dan gelen sonucu iki katmana da yazar */
+    public void put(String address, double lat, double lng) {
+        String key = key(address);
+        if (key.isEmpty()) return;
+        synchronized (l1) {
+            l1.put(key, new double[] { lat, lng });
+        }
+        if (key.length() > MAX_ADDRESS) return;          // kolona sığmaz; sadece L1
+        try {
+            repo.save(new GeocodeCache(key, lat, lng));
+        } catch (DataIntegrityViolationException dup) {
+            // aynı adresi eşzamanlı başka istek yazdı
+        } catch (Exception ex) {
+            log.warn("⚠️ geocode_cache yazılamadı ({}): {}", key, ex.getMessage());
+        }
+    }
+
+    public int localSize() {
+        synchronized (l1) {
+            return l1.size();
+        }
+    }
+
+    /** boşluk farkları ayrı kayıt olmasın: trim + tek boşluk */
+    static String key(String address) {
+        if (address == null) return "";
+        return address.strip().replaceAll("\\s+", " ");
+    }
+}
@@ -2,50 +2,325 @@ package com.osman.traviaskbot.service;
 
 import com.google.maps.GeoApiContext;
 import com.google.maps.GeocodingApi;
+import com.google.maps.PendingResult;
 import com.google.maps.errors.ZeroResultsException;
+import com.google.maps.model.AddressType;
 import com.google.maps.model.GeocodingResult;
+import com.osman.traviaskbot.entity.GeocodeFailure;
+import com.osman.traviaskbot.entity.PickupPoint;
 import com.osman.traviaskbot.exception.AddressValidationException;
 import com.osman.traviaskbot.util.AddressValidator;
-import lombok.RequiredArgsConstructor;
+import com.osman.traviaskbot.util.TokenBucket;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Adres → koordinat çözücüsü; tüm Google Geocoding çağrıları buradan geçer.
+ * <p>
+ * Sıra: {@link GeocodeCacheService} (L1/L2) → {@link PickupGazetteer} →
+ * Google. Aynı adres için eşzamanlı istekler tek bir uçuştaki (in-flight)
+ * çağrıyı paylaşır; sonuç önbelleğe yazılır, tekrar gelen adres aynı
+ * koordinatı alır (eskiden "duplicate" diye reddediliyordu).
+ * <p>
+ * Google istekleri asenkron gider: en fazla {@code geocode.max-concurrent}
+ * istek aynı anda açıktır ve {@code geocode.qps} token bucket'ı kotayı
+ * aşmamayı sağlar. {@link #lookupAll} bir günün tüm pickup'larını bu
+ * sınırlar içinde paralel çözer, hataları adres adres döndürür.
+ * <p>
+ * Sonuçsuz ({@code ZERO_RESULTS}) ya da geçersiz adresler
+ * {@link NegativeGeocodeCache}'e yazılır; TTL dolana ya da admin ekranından
+ * silinene kadar ağa çıkmadan reddedilir.
+ */
 @Service
-@RequiredArgsConstructor          // << GeoApiContext artık DI ile geliyor
 @Slf4j
 public class GeocodingService {
 
-    private final GeoApiContext context;           // <‑‑ @Configuration’da tanımlı
-    private final Set<String> processed = new HashSet<>();
+    /** @param coords çözülen adres → {@code [lat, lng]}; @param failures çözülemeyen adres → sebep */
+    public record Batch(Map<String,double[]> coords, Map<String,Exception> failures) {
+        /** log için kısa hata sebebi */
+        public String reason(String address) {
+            Exception ex = failures.get(address);
+            return ex == null ? "bilinmiyor" : ex.getClass().getSimpleName() + ": " + ex.getMessage();
+        }
+    }
+
+    private final GeoApiContext        context;     // <‑‑ @Configuration’da tanımlı
+    private final GeocodeCacheService  cache;
+    private final PickupGazetteer      gazetteer;
+    private final NegativeGeocodeCache negative;
+    private final TokenBucket          quota;
+    private final Semaphore            permits;
+    private final Duration             batchTimeout;
+    /** Google cevabının DB yazımları (önbellek, sözlük); Google istemcisinin callback thread'i bloklanmaz */
+    private final ExecutorService      writer;
+
+    /** adres → sürmekte olan Google çağrısı */
+    private final ConcurrentHashMap<String,CompletableFuture<double[]>> inFlight = new ConcurrentHashMap<>();
+
+    public GeocodingService(GeoApiContext context,
+                            GeocodeCacheService cache,
+                            PickupGazetteer gazetteer,
+                            NegativeGeocodeCache negative,
+                            @Value("${geocode.qps:25}") double qps,
+                            @Value("${geocode.burst:5}") int burst,
+                            @Value("${geocode.max-concurrent:8}") int maxConcurrent,
+                            @Value("${geocode.batch-timeout:PT30S}") Duration batchTimeout) {
+        this.context      = context;
+        this.cache        = cache;
+        this.gazetteer    = gazetteer;
+        this.negative     = negative;
+        this.quota        = new TokenBucket(qps, burst);
+        this.permits      = new Semaphore(Math.max(1, maxConcurrent));
+        this.batchTimeout = batchTimeout;
+        this.writer       = Executors.newFixedThreadPool(Math.max(1, maxConcurrent), r -> {
+            Thread t = new Thread(r, "geocode-accept");
+            t.setDaemon(true);
+            return t;
+        });
+    }
 
+    @PreDestroy
+    void shutdown() {
+        writer.shutdown();
+    }
+
+    /** Doğrulayarak çözer; geçersiz adres {@link AddressValidationException} */
     public double[] geocode(String raw) {
 
         String address = normalize(raw);
 
-        /* cache & validasyon */
-        if (!AddressValidator.isValid(address) || processed.contains(address)) {
+        /* bilinen kötü adres: tekrar doğrulanıp tekrar kaydedilmez */
+        rejectKnownBad(address, true);
+
+        /* validasyon */
+        if (!AddressValidator.isValid(address)) {
             log.warn("❗ Geocode atlandı: {}", address);
-            throw new AddressValidationException("Invalid or duplicate address: " + address);
+            negative.record(address, NegativeGeocodeCache.INVALID_ADDRESS);
+            throw new AddressValidationException("Invalid address: " + address);
         }
 
         try {
-            GeocodingResult[] res = GeocodingApi.geocode(context, address).await();
-            if (res.length == 0) throw new ZeroResultsException("No geocode: " + address);
-
-            processed.add(address);
-            return new double[]{
-                    res[0].geometry.location.lat,
-                    res[0].geometry.location.lng
-            };
+            return lookup(address);
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
             log.error("❌ Geocode error: {}", address, e);
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Önbellek → sözlük → negatif önbellek → Google. Doğrulama yapmaz.
+     *
+     * @return {@code [lat, lng]} (her çağırana ayrı kopya)
+     * @throws ZeroResultsException Google sonuç bulamazsa
+     * @throws AddressValidationException adres daha önce çözülemediyse (TTL içinde)
+     */
+    public double[] lookup(String address) throws Exception {
+        double[] local = local(address);
+        if (local != null) return local;
+        rejectKnownBad(address, false);
+        return await(flight(address), Long.MAX_VALUE).clone();
+    }
+
+    /**
+     * Adresleri birlikte çözer: yerelde olmayanlar için Google istekleri
+     * paralel (sınırlı) gönderilir, hepsi bitince tek seferde döner.
+     * Tekrarlanan adresler bir kez çözülür. {@code geocode.batch-timeout}
+     * içinde dönmeyen adresler zaman aşımı hatasıyla raporlanır.
+     */
+    public Batch lookupAll(Collection<String> addresses) throws InterruptedException {
+        Map<String,double[]>                    coords   = new LinkedHashMap<>();
+        Map<String,Exception>                   failures = new LinkedHashMap<>();
+        Map<String,CompletableFuture<double[]>> pending  = new LinkedHashMap<>();
+
+        for (String address : new LinkedHashSet<>(addresses)) {
+            if (address == null) continue;
+            if (address.isBlank()) {
+                failures.put(address, new AddressValidationException("Empty address"));
+                continue;
+            }
+            double[] local = local(address);
+            if (local != null) {
+                coords.put(address, local);
+                continue;
+            }
+            try {
+                rejectKnownBad(address, false);
+            } catch (AddressValidationException known) {
+                failures.put(address, known);
+                continue;
+            }
+            pending.put(address, flight(address));               // kota/eşzamanlılık doluysa burada bekler
+        }
+
+        long deadline = System.nanoTime() + batchTimeout.toNanos();
+        for (Map.Entry<String,CompletableFuture<double[]>> e : pending.entrySet()) {
+            try {
+                coords.put(e.getKey(), await(e.getValue(), deadline).clone());
+            } catch (InterruptedException ie) {
+                throw ie;
+            } catch (Exception ex) {
+                failures.put(e.getKey(), ex);
+            }
+        }
+        if (!pending.isEmpty())
+            log.info("🌍 Toplu geocode: {} adres, {} Google isteği, {} hata",
+                    coords.size() + failures.size(), pending.size(), failures.size());
+        return new Batch(coords, failures);
+    }
+
+    /* ————————————————— helpers ————————————————— */
+
+    /** önbellek ya da sözlük; ağ yok */
+    private double[] local(String address) {
+        Optional<double[]> cached = cache.get(address);
+        if (cached.isPresent()) return cached.get();
+
+        Optional<PickupGazetteer.Match> known = gazetteer.resolve(address);
+        if (known.isPresent()) {
+            PickupPoint pt = known.get().point();
+            return new double[] { pt.getLat(), pt.getLng() };
+        }
+        return null;
+    }
+
+    /**
+     * Bilinen kötü adres: Google'a gitmeden reddet.
+     *
+     * @param validating false → doğrulamayan yol (lookup); validator reddi
+     *                   ({@code INVALID_ADDRESS}) onu engellemez, sadece {@code ZERO_RESULTS}
+     */
+    private void rejectKnownBad(String address, boolean validating) {
+        Optional<GeocodeFailure> known = negative.find(address)
+                .filter(f -> validating || !NegativeGeocodeCache.INVALID_ADDRESS.equals(f.getReason()));
+        if (known.isPresent())
+            throw new AddressValidationException(
+                    "Known unresolvable address (" + known.get().getReason() + "): " + address);
+    }
+
+    /** Adres için uçuştaki çağrıya bağlanır ya da yenisini başlatır */
+    private CompletableFuture<double[]> flight(String address) throws InterruptedException {
+        String key = GeocodeCacheService.key(address);
+        CompletableFuture<double[]> mine = new CompletableFuture<>();
+        CompletableFuture<double[]> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) return running;
+        mine.whenComplete((ll, err) -> inFlight.remove(key, mine));
+
+        // biz kuyruğa girerken bitmiş bir uçuş önbelleğe yazmış olabilir
+        Optional<double[]> cached = cache.get(address);
+        if (cached.isPresent()) {
+            mine.complete(cached.get());
+            return mine;
+        }
+        try {
+            send(address).whenCompleteAsync((res, err) -> {
+                if (err != null) {
+                    fail(address, mine, err instanceof CompletionException ce && ce.getCause() != null
+                            ? ce.getCause() : err);
+                    return;
+                }
+                try {
+                    mine.complete(accept(address, res));
+                } catch (Exception ex) {
+                    fail(address, mine, ex);
+                }
+            }, writer);
+        } catch (InterruptedException | RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        }
+        return mine;
+    }
+
+    /** Sonuçsuz adres negatif önbelleğe; geçici hatalar (ağ, kota) kaydedilmez */
+    private void fail(String address, CompletableFuture<double[]> mine, Throwable err) {
+        if (err instanceof ZeroResultsException) negative.record(address, NegativeGeocodeCache.ZERO_RESULTS);
+        mine.completeExceptionally(err);
+    }
+
+    /** Kota + eşzamanlılık sınırı içinde tek asenkron Google isteği */
+    private CompletableFuture<GeocodingResult[]> send(String address) throws InterruptedException {
+        permits.acquire();
+        CompletableFuture<GeocodingResult[]> f;
+        try {
+            quota.acquire();
+            f = dispatch(address);
+        } catch (InterruptedException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+        f.whenComplete((res, err) -> permits.release());
+        return f;
+    }
+
+    /** Ham asenkron Google çağrısı (testlerde ezilir) */
+    CompletableFuture<GeocodingResult[]> dispatch(String address) {
+        CompletableFuture<GeocodingResult[]> f = new CompletableFuture<>();
+        GeocodingApi.geocode(context, address).setCallback(new PendingResult.Callback<>() {
+            @Override
+            public void onResult(GeocodingResult[] result) {
+                f.complete(result);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                f.completeExceptionally(e);
+            }
+        });
+        return f;
+    }
+
+    /** Google cevabı: önbelleğe ve (tam eşleşmeyse) sözlüğe yazar */
+    private double[] accept(String address, GeocodingResult[] res) throws Exception {
+        if (res == null || res.length == 0) throw new ZeroResultsException("No geocode: " + address);
+
+        double lat = res[0].geometry.location.lat;
+        double lng = res[0].geometry.location.lng;
+        // sadece mekâna tam eşleşmeler sözlüğe girer; partial sonuç yanlış oteli,
+        // sokak adresi de benzer yazılışlı komşu kapıyı öğretebilir
+        if (!res[0].partialMatch && isPlace(res[0])) gazetteer.learn(address, res[0].formattedAddress, lat, lng);
+        cache.put(address, lat, lng);
+        return new double[] { lat, lng };
+    }
+
+    /** otel / işletme sonucu mu (sokak, bina numarası değil) */
+    private static boolean isPlace(GeocodingResult r) {
+        if (r.types == null) return false;
+        for (AddressType t : r.types)
+            if (t == AddressType.LODGING || t == AddressType.ESTABLISHMENT || t == AddressType.POINT_OF_INTEREST)
+                return true;
+        return false;
+    }
+
+    /** @param deadline {@code System.nanoTime()} sınırı; {@code Long.MAX_VALUE} = süresiz */
+    private static double[] await(CompletableFuture<double[]> f, long deadline) throws Exception {
+        try {
+            if (deadline == Long.MAX_VALUE) return f.get();
+            return f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
     /* yardımcı */
     private String normalize(String a) {
         if (a == null) return "";
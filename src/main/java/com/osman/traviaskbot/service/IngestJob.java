@@ -0,0 +1,101 @@
+package com.osman.traviaskbot.service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tek bir ingest işinin (IMAP taraması, arşiv replay'i ya da unparsed
+ * yeniden işleme) durumu.
+ * Sayaçlar iş sürerken canlı okunur (pipeline'dan), iş bitince son sonuç
+ * sabitlenir.
+ */
+public final class IngestJob {
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED }
+
+    /**
+     * SCAN: IMAP taraması; REPLAY: arşivden yazarak; DRY_RUN: arşivden sadece parse;
+     * REPROCESS: unparsed_mails tablosunu güncel parser ile yeniden deneme
+     */
+    public enum Kind { SCAN, REPLAY, DRY_RUN, REPROCESS }
+
+    private final long        id;
+    private final Kind        kind;
+    private final Instant     createdAt = Instant.now();
+    private final Set<String> triggers  = new LinkedHashSet<>();
+    private int               coalesced;
+
+    private volatile State    state = State.QUEUED;
+    private volatile Instant  startedAt, finishedAt;
+    private volatile int      matched, submitted;
+    private volatile IngestPipeline        live;
+    private volatile IngestPipeline.Result result;
+    private volatile String   error;
+
+    IngestJob(long id, Kind kind, String trigger) {
+        this.id   = id;
+        this.kind = kind;
+        this.triggers.add(trigger);
+    }
+
+    public long  getId()    { return id; }
+    public Kind  getKind()  { return kind; }
+    public State getState() { return state; }
+
+    /** Kuyrukta bekleyen işe yeni bir tetik katıldı */
+    synchronized void coalesce(String trigger) {
+        triggers.add(trigger);
+        coalesced++;
+    }
+
+    /* ————————————————— ReservationProcessor / koordinatör günceller ————————————————— */
+
+    /** koordinatör kilidi altında çağrılır; tetikleyen taraf durumu hemen doğru görsün */
+    void started()                      { startedAt = Instant.now(); state = State.RUNNING; }
+    void attach(IngestPipeline p)       { live = p; }
+    void matched(int n)                 { matched = n; }
+    void submitted()                    { submitted++; }   // tek fetch / okuma thread'i yazar
+
+    void done(IngestPipeline.Result r) {
+        result = r;
+        live = null;
+        finishedAt = Instant.now();
+        state = State.DONE;
+    }
+
+    void failed(Exception ex) {
+        IngestPipeline p = live;
+        result = p != null ? p.progress() : null;
+        live = null;
+        error = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    public synchronized Map<String,Object> toMap() {
+        IngestPipeline p = live;
+        IngestPipeline.Result r = p != null ? p.progress() : result;
+
+        Map<String,Object> m = new LinkedHashMap<>();
+        m.put("jobId",      id);
+        m.put("kind",       kind);
+        m.put("state",      state);
+        m.put("triggers",   Set.copyOf(triggers));
+        m.put("coalesced",  coalesced);
+        m.put("createdAt",  createdAt);
+        m.put("startedAt",  startedAt);
+        m.put("finishedAt", finishedAt);
+        m.put("matched",    matched);
+        m.put("submitted",  submitted);
+        if (r != null) {
+            m.put("ok",        r.ok());
+            m.put("fail",      r.fail());
+            m.put("duplicate", r.duplicate());
+        }
+        if (error != null) m.put("error", error);
+        return m;
+    }
+}
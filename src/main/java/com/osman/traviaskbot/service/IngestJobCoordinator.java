@@ -0,0 +1,142 @@
+package com.osman.traviaskbot.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IMAP taramalarının, arşiv replay'lerinin ve unparsed yeniden işlemenin tek
+ * giriş noktası: endpoint, zamanlayıcı ve IDLE dinleyicisi buradan tetikler.
+ * <ul>
+ *   <li>aynı anda tek iş çalışır (watermark çift işlenmez, replay / yeniden
+ *       işleme taramayla aynı rezervasyonları yarışarak yazmaz); bekleyenler
+ *       sırayla çalışır</li>
+ *   <li>tarama sürerken gelen tetikler tek bir bekleyen işte birleşir;
+ *       çalışan iş fetch'i çoktan geçmiş olabileceği için hemen ardından
+ *       bir kez daha taranır, yeni mail kaçmaz. Aynı türde bekleyen replay
+ *       ya da yeniden işleme varsa yeni istek de ona katılır</li>
+ *   <li>tetikleyen taraf beklemez, iş numarasını alır</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IngestJobCoordinator {
+
+    private static final int HISTORY = 20;
+
+    private final ReservationProcessor processor;
+    private final UnparsedReprocessor  reprocessor;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ingest-job");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicLong ids = new AtomicLong();
+
+    /* son işler – eskiler düşer */
+    private final Map<Long,IngestJob> history = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long,IngestJob> e) {
+            return size() > HISTORY;
+        }
+    };
+    private IngestJob              running;
+    private final Deque<IngestJob> waiting = new ArrayDeque<>();
+
+    /**
+     * @param source tetikleyen taraf ("api", "schedule", "idle" …)
+     * @return çalışmaya başlayan ya da tetiğin katıldığı bekleyen iş
+     */
+    public synchronized IngestJob trigger(String source) {
+        return submit(IngestJob.Kind.SCAN, source);
+    }
+
+    /**
+     * Ham mail arşivini taramalarla sıralı, arka planda yeniden işler.
+     *
+     * @param persist false → sadece parse (dry-run), hiçbir şey yazılmaz
+     */
+    public synchronized IngestJob replay(boolean persist, String source) {
+        return submit(persist ? IngestJob.Kind.REPLAY : IngestJob.Kind.DRY_RUN, source);
+    }
+
+    /** unparsed_mails tablosunu taramalarla sıralı, arka planda yeniden dener */
+    public synchronized IngestJob reprocess(String source) {
+        return submit(IngestJob.Kind.REPROCESS, source);
+    }
+
+    public synchronized Optional<IngestJob> find(long id) {
+        return Optional.ofNullable(history.get(id));
+    }
+
+    /** en yenisi başta */
+    public synchronized List<IngestJob> recent() {
+        List<IngestJob> jobs = new ArrayList<>(history.values());
+        Collections.reverse(jobs);
+        return jobs;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /* ————————————————— iş ————————————————— */
+
+    /** kilit altında çağrılır */
+    private IngestJob submit(IngestJob.Kind kind, String source) {
+        for (IngestJob w : waiting) {
+            if (w.getKind() == kind) {
+                w.coalesce(source);
+                return w;
+            }
+        }
+        IngestJob job = new IngestJob(ids.incrementAndGet(), kind, source);
+        history.put(job.getId(), job);
+        if (running == null) start(job);
+        else waiting.add(job);
+        return job;
+    }
+
+    /** kilit altında çağrılır */
+    private void start(IngestJob job) {
+        running = job;
+        job.started();
+        runner.execute(() -> run(job));
+    }
+
+    private void run(IngestJob job) {
+        try {
+            job.done(switch (job.getKind()) {
+                case SCAN      -> processor.ingest(job);
+                case REPLAY    -> processor.replayArchive(job, true);
+                case DRY_RUN   -> processor.replayArchive(job, false);
+                case REPROCESS -> reprocessor.run(job);
+            });
+        } catch (Exception ex) {
+            log.error("✉️ {} işi #{} hata ile bitti", job.getKind(), job.getId(), ex);
+            job.failed(ex);
+        } finally {
+            synchronized (this) {
+                running = null;
+                IngestJob next = waiting.poll();
+                if (next != null) start(next);
+            }
+        }
+    }
+}
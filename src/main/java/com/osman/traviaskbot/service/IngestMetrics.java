@@ -0,0 +1,86 @@
+package com.osman.traviaskbot.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Ingest yolunun Micrometer ölçümleri ({@code /actuator/metrics},
+ * {@code /actuator/prometheus}).
+ * <ul>
+ *   <li>{@code ingest.stage} timer – stage = search | fetch | extract | parse | persist</li>
+ *   <li>{@code ingest.mails} counter – result = ok | failed | duplicate | unparsed</li>
+ *   <li>{@code ingest.backlog} gauge – taramada bulunmuş ama pipeline'dan henüz çıkmamış mail</li>
+ * </ul>
+ * Hepsi {@code source} etiketi taşır (imap | replay | reprocess); replay ve
+ * yeniden işleme gerçek gelen kutusu trafiğiyle karışmaz.
+ */
+@Component
+public class IngestMetrics {
+
+    private final MeterRegistry           registry;
+    private final Map<String,Recorder>    recorders = new ConcurrentHashMap<>();
+    private final Set<LongSupplier>       backlogs  = ConcurrentHashMap.newKeySet();
+
+    public IngestMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("ingest.backlog", backlogs,
+                        b -> b.stream().mapToLong(LongSupplier::getAsLong).sum())
+                .description("Taramada bulunmuş, henüz işlenmemiş mail sayısı")
+                .register(registry);
+    }
+
+    /** Kaynağa göre etiketlenmiş ölçüm seti; meter'lar bir kez oluşturulur */
+    Recorder source(String source) {
+        return recorders.computeIfAbsent(source, s -> new Recorder(registry, s));
+    }
+
+    /** Backlog gauge'una bir kaynak ekler; kapatılınca çıkar */
+    Registration backlog(LongSupplier pending) {
+        backlogs.add(pending);
+        return () -> backlogs.remove(pending);
+    }
+
+    @FunctionalInterface
+    interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    static final class Recorder {
+        final Timer   search, fetch, extract, parse, persist;
+        final Counter ok, failed, duplicate, unparsed;
+
+        private Recorder(MeterRegistry r, String source) {
+            search    = stage(r, source, "search");
+            fetch     = stage(r, source, "fetch");
+            extract   = stage(r, source, "extract");
+            parse     = stage(r, source, "parse");
+            persist   = stage(r, source, "persist");
+            ok        = mails(r, source, "ok");
+            failed    = mails(r, source, "failed");
+            duplicate = mails(r, source, "duplicate");
+            unparsed  = mails(r, source, "unparsed");
+        }
+
+        private static Timer stage(MeterRegistry r, String source, String stage) {
+            return Timer.builder("ingest.stage")
+                    .tag("source", source).tag("stage", stage)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(r);
+        }
+
+        private static Counter mails(MeterRegistry r, String source, String result) {
+            return Counter.builder("ingest.mails")
+                    .tag("source", source).tag("result", result)
+                    .register(r);
+        }
+    }
+}
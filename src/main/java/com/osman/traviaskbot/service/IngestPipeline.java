@@ -0,0 +1,335 @@
+package com.osman.traviaskbot.service;
+
+import jakarta.mail.Message;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * IMAP fetch → gövde çıkarma → parseEmail → saveReservation aşamalarını
+ * sınırlı kuyruklarla birbirine bağlar.
+ * <p>
+ * Her aşama kendi thread'inde çalışır; kuyruk dolduğunda bir önceki aşama
+ * bekler (backpressure). Böylece ağ I/O'su sürerken parser boş kalmaz ve
+ * backlog ne kadar büyük olursa olsun bellekte en fazla kuyruk kapasitesi
+ * kadar mail tutulur.
+ * <p>
+ * Parse aşaması birden çok worker ile paralel çalışabilir. Sonuçlar persist
+ * aşamasında sıra numarasına göre yeniden dizilir; böylece aynı referansa
+ * sahip iki mailden hangisinin yazılacağı worker sayısından bağımsızdır
+ * (tek thread'li çalışmayla aynı sonuç).
+ */
+@Slf4j
+final class IngestPipeline {
+
+    /**
+     * Writer bu anahtarı bir kayda koyarsa kayıt uygulanmadı ama kalıcı
+     * olarak beklemeye alındı: committed sayılır, persisted sayılmaz.
+     */
+    static final String DEFERRED = "deferred";
+
+    /** Mail gövdesini çıkaran aşama – IMAP'e dokunduğu için checked exception atabilir */
+    @FunctionalInterface
+    interface BodyExtractor {
+        String extract(Message msg) throws Exception;
+    }
+
+    /**
+     * @param ok            kaydedilen rezervasyon sayısı
+     * @param fail          parse edilemeyen / hata alan mail sayısı
+     * @param duplicate     zaten kayıtlı olduğu için atlanan rezervasyon sayısı
+     * @param committed     DB'ye yazılmış (rezervasyon ya da unparsed) kayıtların UID'leri – SEEN işaretlenebilir
+     * @param persisted     rezervasyonu DB'de olan (eklenen ya da zaten var olan) kayıtların UID'leri;
+     *                      writer'ın {@link #DEFERRED} ile beklemeye aldıkları hariç
+     * @param firstRetryUid gövdesi okunamayan ya da yazılamayan en küçük UID; watermark bunun altında kalmalı
+     */
+    record Result(int ok, int fail, int duplicate,
+                  List<Long> committed, List<Long> persisted, long firstRetryUid) { }
+
+    /**
+     * Kuyruklarda akan iş birimi; her aşama bir sonraki alanı doldurur.
+     * Parse'dan sonra {@code data == null} olan kayıt sadece sırayı ilerletir.
+     */
+    private record Item(long seq, long uid, String sender, Message message, String body, Map<String,Object> data) { }
+
+    private final BlockingQueue<Optional<Item>> messages;
+    private final BlockingQueue<Optional<Item>> bodies;
+    private final BlockingQueue<Optional<Item>> parsed;
+    /** extract → persist arasında aynı anda bulunabilecek en fazla mail (reorder tamponu dahil) */
+    private final Semaphore inFlight;
+    private final int       parseWorkers;
+    /** false → committed / persisted UID listeleri tutulmaz (arşiv replay'i: kimse okumaz, liste arşiv kadar büyür) */
+    private final boolean   trackUids;
+    private final IngestMetrics.Recorder metrics;
+
+    private final List<Thread>  workers       = new ArrayList<>();
+    private final List<Long>    committed     = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long>    persisted     = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger ok            = new AtomicInteger();
+    private final AtomicInteger fail          = new AtomicInteger();
+    private final AtomicInteger duplicate     = new AtomicInteger();
+    private final AtomicInteger parsersLeft;
+    /** pipeline'dan çıkmış (yazılmış, atlanmış ya da hata almış) kayıt sayısı */
+    private final AtomicInteger completed     = new AtomicInteger();
+    private final AtomicLong    firstRetryUid = new AtomicLong(Long.MAX_VALUE);
+    private boolean finished;
+
+    /**
+     * @param parseWorkers paralel parse thread sayısı
+     * @param trackUids    sonuçta committed / persisted UID'leri döndür
+     * @param parser       (gönderen, gövde) → alanlar; çözülemezse null
+     * @param unparsed     (gönderen, gövde) – çözülemeyen mail kaydı
+     * @param writer       bir batch rezervasyonu yazar, gerçekten eklenen satır sayısını döner
+     * @param metrics      aşama süreleri ve sonuç sayaçları
+     */
+    IngestPipeline(int capacity,
+                   int batchSize,
+                   int parseWorkers,
+                   boolean trackUids,
+                   BodyExtractor extractor,
+                   BiFunction<String,String,Map<String,Object>> parser,
+                   ToIntFunction<List<Map<String,Object>>> writer,
+                   BiConsumer<String,String> unparsed,
+                   IngestMetrics.Recorder metrics) {
+
+        this.messages     = new ArrayBlockingQueue<>(capacity);
+        this.bodies       = new ArrayBlockingQueue<>(capacity);
+        this.parsed       = new ArrayBlockingQueue<>(capacity);
+        this.inFlight     = new Semaphore(capacity);
+        this.parseWorkers = Math.max(1, parseWorkers);
+        this.trackUids    = trackUids;
+        this.parsersLeft  = new AtomicInteger(this.parseWorkers);
+        this.metrics      = metrics;
+
+        /* 1) gövde çıkarma – sıra numarası burada verilir */
+        startExtract(extractor);
+
+        /* 2) parse – parse edilemeyen mail unparsed_mails'e düşer, tekrar denenmez */
+        for (int i = 1; i <= this.parseWorkers; i++)
+            startParser("ingest-parse-" + i, parser, unparsed);
+
+        /* 3) persist – sıraya dizilmiş, batch halinde; hata alırsa batch sonraki taramada yeniden denenir */
+        startPersist(batchSize, batch -> {
+            int inserted = writer.applyAsInt(batch.stream().map(Item::data).toList());
+            if (trackUids) batch.forEach(it -> {
+                committed.add(it.uid());
+                if (!it.data().containsKey(DEFERRED)) persisted.add(it.uid());
+            });
+            ok.addAndGet(inserted);
+            duplicate.addAndGet(batch.size() - inserted);
+            metrics.ok.increment(inserted);
+            metrics.duplicate.increment(batch.size() - inserted);
+        });
+    }
+
+    /** IMAP tarafı her mesajı buraya verir; kuyruk doluysa bekler. */
+    void submit(long uid, String sender, Message msg) throws InterruptedException {
+        put(messages, new Item(-1, uid, sender, msg, null, null));
+    }
+
+    /** Zaten kanonik metne çevrilmiş gövde (ör. unparsed_mails satırı); çıkarma aşaması atlanır. */
+    void submitText(long id, String sender, String body) throws InterruptedException {
+        put(messages, new Item(-1, id, sender, null, body, null));
+    }
+
+    /** Akışı kapatır, tüm aşamaların boşalmasını bekler. Birden çok kez çağrılabilir. */
+    Result finish() {
+        if (!finished) {
+            finished = true;
+            try {
+                messages.put(Optional.empty());
+                for (Thread t : workers) t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                workers.forEach(Thread::interrupt);
+            }
+        }
+        return new Result(ok.get(), fail.get(), duplicate.get(),
+                List.copyOf(committed), List.copyOf(persisted), firstRetryUid.get());
+    }
+
+    /** Pipeline'dan çıkmış kayıt sayısı – backlog = verilen − bu */
+    int completed() {
+        return completed.get();
+    }
+
+    /** Çalışırken anlık sayaçlar (UID listeleri olmadan) */
+    Result progress() {
+        return new Result(ok.get(), fail.get(), duplicate.get(), List.of(), List.of(), firstRetryUid.get());
+    }
+
+    /* ————————————————— aşamalar ————————————————— */
+
+    private void startExtract(BodyExtractor extractor) {
+        spawn("ingest-extract", () -> {
+            long seq = 0;
+            for (Optional<Item> in = messages.take(); in.isPresent(); in = messages.take()) {
+                Item it = in.get();
+                String body = it.body();
+                if (body == null) {
+                    long t0 = System.nanoTime();
+                    try {
+                        body = extractor.extract(it.message());
+                    } catch (Exception ex) {
+                        // çoğu zaman geçici IMAP hatası (büyük maillerin gövdesi tembel okunur);
+                        // watermark bu mailin altında kalır, sonraki taramada yeniden denenir
+                        log.error("⛔ ingest-extract aşamasında hata (uid={})", it.uid(), ex);
+                        firstRetryUid.accumulateAndGet(it.uid(), Math::min);
+                        fail.incrementAndGet();
+                        metrics.failed.increment();
+                        completed.incrementAndGet();
+                        continue;
+                    } finally {
+                        metrics.extract.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+                    }
+                }
+                if (body == null || body.isBlank()) {
+                    completed.incrementAndGet();
+                    continue;
+                }
+                inFlight.acquire();
+                put(bodies, new Item(seq++, it.uid(), it.sender(), it.message(), body, null));
+            }
+            // her parse worker'ı kendi bitiş işaretini alır
+            for (int i = 0; i < parseWorkers; i++) bodies.put(Optional.empty());
+        });
+    }
+
+    private void startParser(String name,
+                             BiFunction<String,String,Map<String,Object>> parser,
+                             BiConsumer<String,String> unparsed) {
+        spawn(name, () -> {
+            for (Optional<Item> in = bodies.take(); in.isPresent(); in = bodies.take()) {
+                Item it = in.get();
+                Map<String,Object> data = null;
+                long t0 = System.nanoTime();
+                try {
+                    data = parser.apply(it.sender(), it.body());
+                } catch (RuntimeException ex) {
+                    log.error("⛔ Mail parse exception (uid={})", it.uid(), ex);
+                } finally {
+                    metrics.parse.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+                }
+                if (data == null) {
+                    try {
+                        unparsed.accept(it.sender(), it.body());
+                        if (trackUids) committed.add(it.uid());
+                        metrics.unparsed.increment();
+                    } catch (RuntimeException ex) {
+                        log.error("⛔ unparsed kaydı yazılamadı (uid={})", it.uid(), ex);
+                        firstRetryUid.accumulateAndGet(it.uid(), Math::min);
+                        metrics.failed.increment();
+                    }
+                    fail.incrementAndGet();
+                }
+                // data == null olsa da sırayı ilerletmek için persist'e gider
+                parsed.put(Optional.of(new Item(it.seq(), it.uid(), it.sender(), it.message(), null, data)));
+            }
+            if (parsersLeft.decrementAndGet() == 0) parsed.put(Optional.empty());
+        });
+    }
+
+    @FunctionalInterface
+    private interface BatchStep {
+        void accept(List<Item> batch) throws Exception;
+    }
+
+    /**
+     * Parse sonuçlarını sıra numarasına göre dizer, kesintisiz sıradaki
+     * kayıtları {@code batchSize}'a kadar toplayıp tek seferde yazar.
+     * Kuyruk boşalınca beklemeden flush eder; IDLE'dan gelen tek mail
+     * gecikmez, backlog'da ise batch'ler dolu gider.
+     */
+    private void startPersist(int batchSize, BatchStep step) {
+        spawn("ingest-persist", () -> {
+            TreeMap<Long,Item> reorder = new TreeMap<>();
+            List<Item> batch = new ArrayList<>(batchSize);
+            long next = 0;
+            boolean end = false;
+
+            while (true) {
+                // sıradaki kayıt tamponda hazır değilse yenisini bekle
+                if (!end && (reorder.isEmpty() || reorder.firstKey() != next)) {
+                    Optional<Item> in = parsed.take();
+                    if (in.isEmpty()) end = true;
+                    else reorder.put(in.get().seq(), in.get());
+                }
+                while (true) {
+                    // batch dolunca kalan sıralı kayıtlar tamponda bir sonraki batch'i bekler
+                    while (batch.size() < batchSize && !reorder.isEmpty() && reorder.firstKey() == next) {
+                        Item it = reorder.pollFirstEntry().getValue();
+                        next++;
+                        inFlight.release();
+                        if (it.data() != null) batch.add(it);
+                        else completed.incrementAndGet();
+                    }
+                    if (end || batch.size() >= batchSize) break;
+                    Optional<Item> in = parsed.poll();
+                    if (in == null) break;                          // kuyruk boş → beklemeden flush
+                    if (in.isEmpty()) end = true;
+                    else reorder.put(in.get().seq(), in.get());
+                }
+
+                if (batch.isEmpty()) {
+                    if (end) break;
+                    continue;
+                }
+                long t0 = System.nanoTime();
+                try {
+                    step.accept(batch);
+                } catch (Exception ex) {
+                    log.error("⛔ ingest-persist aşamasında hata ({} mail)", batch.size(), ex);
+                    fail.addAndGet(batch.size());
+                    metrics.failed.increment(batch.size());
+                    batch.forEach(it -> firstRetryUid.accumulateAndGet(it.uid(), Math::min));
+                } finally {
+                    metrics.persist.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+                }
+                completed.addAndGet(batch.size());
+                batch.clear();
+            }
+        });
+    }
+
+    /* ————————————————— helpers ————————————————— */
+
+    @FunctionalInterface
+    private interface Body {
+        void run() throws InterruptedException;
+    }
+
+    private void spawn(String name, Body body) {
+        Thread t = new Thread(() -> {
+            try {
+                body.run();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }, name);
+        t.setDaemon(true);
+        t.start();
+        workers.add(t);
+    }
+
+    /** put, ama tüketici thread'ler ölmüşse sonsuza kadar beklemez */
+    private void put(BlockingQueue<Optional<Item>> q, Item item) throws InterruptedException {
+        while (!q.offer(Optional.of(item), 1, TimeUnit.SECONDS)) {
+            if (workers.stream().noneMatch(Thread::isAlive))
+                throw new IllegalStateException("Ingest pipeline durmuş");
+        }
+    }
+}
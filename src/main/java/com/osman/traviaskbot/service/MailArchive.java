@@ -0,0 +1,311 @@
+package com.osman.traviaskbot.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Ham MIME maillerinin sıkıştırılmış, sadece-ekleme (append-only) arşivi.
+ * <p>
+ * Dosyalar {@code mail-000001-v<uidValidity>.seg} … şeklinde segmentlere bölünür;
+ * UIDVALIDITY dosya adında durur, bir segmentteki tüm UID'ler aynı döneme
+ * (epoch) aittir. Eski {@code mail-000001.seg} adlı segmentlerin dönemi bilinmez.
+ * Her kayıt:
+ * <pre>
+ *   int  payloadLen | int crc32(payload) | long uid | long receivedAtMillis | payload (deflate)
+ * </pre>
+ * Replay segmentleri memory-map ile okur; IMAP'e gitmeden parser aylarca
+ * mail üzerinde disk hızında yeniden çalıştırılabilir. Yarım yazılmış son
+ * kayıt (crash) replay'de sessizce atlanır, açılışta da kesilir ki yeni
+ * kayıtlar hizalı başlasın.
+ * <p>
+ * Mailler artan UID sırasıyla gelir; son yazılan UID'den küçük ya da eşit
+ * olanlar tekrar yazılmaz. Watermark yeniden deneme için geri tutulduğunda
+ * aynı mailler yeniden taransa da arşivde tek kopya kalır. Bu kıyas sadece
+ * {@link #useUidValidity(long)} ile seçilen dönemin segmentlerine göre yapılır;
+ * UIDVALIDITY değişince yeni segment açılır ve yeniden başlatmada da eski
+ * dönemin UID'leri yeni dönemin maillerini gölgelemez.
+ */
+@Service
+@Slf4j
+public class MailArchive {
+
+    private static final int    HEADER = 4 + 4 + 8 + 8;
+    private static final String PREFIX = "mail-";
+    private static final String SUFFIX = ".seg";
+    private static final String EPOCH  = "-v";
+    /** dönemi bilinmeyen (eski adlı) segment */
+    static final long           UNKNOWN_VALIDITY = -1;
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(long uid, long receivedAtMillis, byte[] rawMime) throws Exception;
+    }
+
+    @Value("${mail.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mail.archive.dir:mail-archive}")
+    private String dirName;
+
+    @Value("${mail.archive.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    private Path        dir;
+    private FileChannel current;
+    private Path        currentPath;
+    private int         currentIndex;
+    /** açık segmentin UIDVALIDITY'si */
+    private long        validity = UNKNOWN_VALIDITY;
+    /** bu dönemde arşivdeki son kaydın UID'si; segment açılınca dosyadan okunur */
+    private long        lastUid;
+
+    @PostConstruct
+    void init() {
+        dir = Path.of(dirName);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Mesajı ham haliyle arşive ekler; zaten arşivdeki UID'ler atlanır.
+     * Hata ingest'i durdurmaz, sadece loglanır.
+     */
+    public synchronized void append(long uid, Message msg) {
+        if (!enabled) return;
+        try {
+            ensureOpen();
+            if (uid <= lastUid) return;                  // yeniden taranan mail, zaten arşivde
+
+            ByteArrayOutputStream buf = new ByteArrayOutputStream(16 * 1024);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DeflaterOutputStream out = new DeflaterOutputStream(buf, deflater)) {
+                msg.writeTo(out);
+            } finally {
+                deflater.end();
+            }
+            byte[] payload = buf.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            long received = msg.getReceivedDate() != null ? msg.getReceivedDate().getTime() : 0L;
+
+            ByteBuffer rec = ByteBuffer.allocate(HEADER + payload.length);
+            rec.putInt(payload.length).putInt((int) crc.getValue())
+               .putLong(uid).putLong(received).put(payload).flip();
+
+            FileChannel ch = channelFor(rec.remaining());
+            while (rec.hasRemaining()) ch.write(rec);
+            lastUid = uid;
+        } catch (Exception ex) {
+            log.warn("🗄️ Arşive yazılamadı (uid={}): {}", uid, ex.getMessage());
+        }
+    }
+
+    /**
+     * Sonraki {@link #append} çağrılarının UIDVALIDITY'si; her taramanın başında çağrılır.
+     * Dönem açık segmentinkinden farklıysa yeni segment açılır ve {@code lastUid}
+     * sadece bu döneme ait segmentlerden okunur (yoksa 0).
+     */
+    public synchronized void useUidValidity(long uidValidity) {
+        if (!enabled) return;
+        try {
+            ensureOpen();
+            if (uidValidity == validity) return;
+
+            log.info("🗄️ Arşiv UIDVALIDITY {} → {}", validity, uidValidity);
+            lastUid = 0;
+            List<Path> segs = segments();
+            for (int i = segs.size() - 1; i >= 0 && lastUid == 0; i--)
+                if (validityOf(segs.get(i)) == uidValidity) lastUid = lastUidOf(segs.get(i), false);
+
+            current.close();
+            if (Files.size(currentPath) == 0) Files.delete(currentPath);   // boş segment yeni adla yeniden açılır
+            else currentIndex++;
+            validity = uidValidity;
+            current  = open(currentIndex);
+        } catch (IOException ex) {
+            log.warn("🗄️ Arşiv açılamadı: {}", ex.getMessage());
+        }
+    }
+
+    /** Tüm segmentleri sırayla memory-map edip her kaydı açılmış MIME byte'ları ile verir. */
+    public long replay(RecordConsumer consumer) throws Exception {
+        long count = 0;
+        synchronized (this) {
+            if (current != null) current.force(false);
+        }
+        for (Path seg : segments()) {
+            try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.READ)) {
+                MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                Inflater inflater = new Inflater();
+                try {
+                    while (map.remaining() >= HEADER) {
+                        int  len      = map.getInt();
+                        int  crc      = map.getInt();
+                        long uid      = map.getLong();
+                        long received = map.getLong();
+                        if (len < 0 || len > map.remaining()) {
+                            log.warn("🗄️ {} sonunda yarım kayıt, atlandı", seg.getFileName());
+                            break;
+                        }
+                        byte[] payload = new byte[len];
+                        map.get(payload);
+
+                        CRC32 check = new CRC32();
+                        check.update(payload);
+                        if ((int) check.getValue() != crc) {
+                            log.warn("🗄️ {} içinde bozuk kayıt (uid={}), atlandı", seg.getFileName(), uid);
+                            continue;
+                        }
+                        inflater.reset();
+                        consumer.accept(uid, received, inflate(inflater, payload));
+                        count++;
+                    }
+                } finally {
+                    inflater.end();
+                }
+            }
+        }
+        return count;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    /* ————————————————— helpers ————————————————— */
+
+    private void ensureOpen() throws IOException {
+        if (current != null) return;
+        Files.createDirectories(dir);
+        List<Path> segs = segments();
+        currentIndex = segs.isEmpty() ? 1 : indexOf(segs.get(segs.size() - 1));
+        validity     = segs.isEmpty() ? UNKNOWN_VALIDITY : validityOf(segs.get(segs.size() - 1));
+
+        // son segment boş olabilir (yeni açılmış); aynı dönemin son kaydını geriye doğru ara
+        lastUid = 0;
+        for (int i = segs.size() - 1; i >= 0; i--) {
+            if (validityOf(segs.get(i)) != validity) continue;
+            long uid = lastUidOf(segs.get(i), i == segs.size() - 1);
+            if (uid > 0) {
+                lastUid = uid;
+                break;
+            }
+        }
+        current = open(currentIndex);
+    }
+
+    private FileChannel channelFor(int bytes) throws IOException {
+        ensureOpen();
+        if (current.size() > 0 && current.size() + bytes > segmentBytes) {
+            current.close();
+            current = open(++currentIndex);
+        }
+        return current;
+    }
+
+    /** {@code index} numaralı segmenti açık dönemin adıyla açar */
+    private FileChannel open(int index) throws IOException {
+        String epoch = validity == UNKNOWN_VALIDITY ? "" : EPOCH + validity;
+        currentPath = dir.resolve(String.format("%s%06d%s%s", PREFIX, index, epoch, SUFFIX));
+        return FileChannel.open(currentPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> {
+                        String n = p.getFileName().toString();
+                        return n.startsWith(PREFIX) && n.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.comparingInt(MailArchive::indexOf))
+                    .toList();
+        }
+    }
+
+    /**
+     * Sadece başlıkları gezerek segmentteki son sağlam kaydın UID'sini bulur.
+     *
+     * @param repair true → yarım kalan kuyruk (crash) kesilir
+     * @return UID; kayıt yoksa 0
+     */
+    private static long lastUidOf(Path seg, boolean repair) throws IOException {
+        try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer head = ByteBuffer.allocate(HEADER);
+            long size = ch.size(), pos = 0, uid = 0;
+            while (size - pos >= HEADER) {
+                head.clear();
+                while (head.hasRemaining() && ch.read(head, pos + head.position()) > 0) { }
+                head.flip();
+                int len = head.getInt();
+                head.getInt();                                   // crc
+                long recUid = head.getLong();
+                if (len < 0 || pos + HEADER + len > size) break;
+                uid = recUid;
+                pos += HEADER + len;
+            }
+            if (repair && pos < size) {
+                log.warn("🗄️ {} sonunda {} byte yarım kayıt kesildi", seg.getFileName(), size - pos);
+                ch.truncate(pos);
+            }
+            return uid;
+        }
+    }
+
+    private static int indexOf(Path seg) {
+        String n = stem(seg);
+        int e = n.indexOf(EPOCH);
+        return Integer.parseInt(e < 0 ? n : n.substring(0, e));
+    }
+
+    static long validityOf(Path seg) {
+        String n = stem(seg);
+        int e = n.indexOf(EPOCH);
+        return e < 0 ? UNKNOWN_VALIDITY : Long.parseLong(n.substring(e + EPOCH.length()));
+    }
+
+    /** "mail-000003-v42.seg" → "000003-v42" */
+    private static String stem(Path seg) {
+        String n = seg.getFileName().toString();
+        return n.substring(PREFIX.length(), n.length() - SUFFIX.length());
+    }
+
+    private static byte[] inflate(Inflater inflater, byte[] payload) throws DataFormatException {
+        inflater.setInput(payload);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 4);
+        byte[] chunk = new byte[16 * 1024];
+        while (!inflater.finished()) {
+            int n = inflater.inflate(chunk);
+            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
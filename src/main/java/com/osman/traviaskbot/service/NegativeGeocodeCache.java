@@ -0,0 +1,169 @@
+package com.osman.traviaskbot.service;
+
+import com.osman.traviaskbot.entity.GeocodeFailure;
+import com.osman.traviaskbot.repository.GeocodeFailureRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Çözülemeyen adreslerin negatif önbelleği.
+ * <p>
+ * Google'ın sonuç bulamadığı ({@code ZERO_RESULTS}) ya da
+ * {@code AddressValidator}'dan geçmeyen adresler sebebiyle birlikte
+ * {@code geocode.negative-ttl} süresince tutulur. Bu sürede
+ * {@link GeocodingService} aynı adresi ağa çıkmadan reddeder; her rota
+ * isteğinde kota ve gecikme harcanmaz. {@code INVALID_ADDRESS} kaydı sadece
+ * doğrulayan {@code geocode} yolunu keser; doğrulamayan {@code lookup} yolu
+ * yalnız {@code ZERO_RESULTS}'a bakar. Kayıtlar {@code geocode_failures}
+ * tablosuna da yazılır (yeniden başlatmada korunur) ve admin ekranından
+ * ({@code /geocode-failures}) silinebilir.
+ */
+@Service
+@Slf4j
+public class NegativeGeocodeCache {
+
+    public static final String ZERO_RESULTS    = "ZERO_RESULTS";
+    public static final String INVALID_ADDRESS = "INVALID_ADDRESS";
+
+    /** geocode_failures.address kolonu */
+    private static final int MAX_ADDRESS = 512;
+
+    private final GeocodeFailureRepository repo;
+    private final Duration                 ttl;
+    private final Clock                    clock;
+
+    private final ConcurrentHashMap<String,GeocodeFailure> entries = new ConcurrentHashMap<>();
+
+    private final Counter hits, recorded;
+
+    @Autowired
+    public NegativeGeocodeCache(GeocodeFailureRepository repo,
+                                MeterRegistry meters,
+                                @Value("${geocode.negative-ttl:P1D}") Duration ttl) {
+        this(repo, meters, ttl, Clock.systemUTC());
+    }
+
+    NegativeGeocodeCache(GeocodeFailureRepository repo, MeterRegistry meters, Duration ttl, Clock clock) {
+        this.repo     = repo;
+        this.ttl      = ttl;
+        this.clock    = clock;
+        this.hits     = meters.counter("geocode.negative.requests", "result", "hit");
+        this.recorded = meters.counter("geocode.negative.recorded");
+        Gauge.builder("geocode.negative.size", this, NegativeGeocodeCache::size).register(meters);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            for (GeocodeFailure f : repo.findByExpiresAtAfter(clock.instant()))
+                entries.put(f.getAddress(), f);
+            log.info("🚫 Negatif geocode önbelleği yüklendi: {} adres", entries.size());
+        } catch (Exception ex) {
+            log.warn("⚠️ geocode_failures okunamadı: {}", ex.getMessage());
+        }
+    }
+
+    /** @return süresi dolmamış hata kaydı; yoksa boş */
+    public Optional<GeocodeFailure> find(String address) {
+        String key = GeocodeCacheService.key(address);
+        GeocodeFailure f = entries.get(key);
+        if (f == null) return Optional.empty();
+        if (!f.getExpiresAt().isAfter(clock.instant())) {
+            entries.remove(key, f);                      // süresi doldu; tekrar denensin
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(f);
+    }
+
+    /** Hatayı kaydeder; aynı adres tekrar düşerse sayaç artar, TTL yenilenir */
+    public void record(String address, String reason) {
+        String key = GeocodeCacheService.key(address);
+        if (key.isEmpty()) return;
+        Instant now = clock.instant();
+        GeocodeFailure f = entries.compute(key, (k, old) -> old == null
+                ? new GeocodeFailure(k, reason, 1, now, now, now.plus(ttl))
+                : new GeocodeFailure(k, reason, old.getAttempts() + 1, old.getFirstFailedAt(), now, now.plus(ttl)));
+        recorded.increment();
+        log.info("🚫 Çözülemeyen adres ({}, {}. kez): {}", reason, f.getAttempts(), key);
+
+        if (key.length() > MAX_ADDRESS) return;          // kolona sığmaz; sadece bellekte
+        try {
+            repo.save(f);
+        } catch (Exception ex) {
+            log.warn("⚠️ geocode_failures yazılamadı ({}): {}", key, ex.getMessage());
+        }
+    }
+
+    /** admin ekranı için: süresi dolmamış kayıtlar, en yeni hata önce */
+    public List<GeocodeFailure> list() {
+        Instant now = clock.instant();
+        return entries.values().stream()
+                .filter(f -> f.getExpiresAt().isAfter(now))
+                .sorted(Comparator.comparing(GeocodeFailure::getLastFailedAt).reversed())
+                .toList();
+    }
+
+    /** Adres düzeltildi: bir sonraki istekte tekrar denenir */
+    public boolean purge(String address) {
+        String key = GeocodeCacheService.key(address);
+        boolean removed = entries.remove(key) != null;
+        try {
+            if (repo.existsById(key)) {
+                repo.deleteById(key);
+                removed = true;
+            }
+        } catch (Exception ex) {
+            log.warn("⚠️ geocode_failures silinemedi ({}): {}", key, ex.getMessage());
+        }
+        if (removed) log.info("🧹 Negatif önbellekten silindi: {}", key);
+        return removed;
+    }
+
+    /** @return silinen kayıt sayısı */
+    public int purgeAll() {
+        int n = entries.size();
+        entries.clear();
+        try {
+            n = Math.max(n, (int) repo.count());
+            repo.deleteAll();
+        } catch (Exception ex) {
+            log.warn("⚠️ geocode_failures temizlenemedi: {}", ex.getMessage());
+        }
+        log.info("🧹 Negatif geocode önbelleği temizlendi: {} adres", n);
+        return n;
+    }
+
+    /** Süresi dolan kayıtları bellekten ve tablodan atar */
+    @Scheduled(fixedDelayString = "${geocode.negative-sweep:PT1H}")
+    public void sweep() {
+        Instant now = clock.instant();
+        entries.values().removeIf(f -> !f.getExpiresAt().isAfter(now));
+        try {
+            long n = repo.deleteByExpiresAtBefore(now);
+            if (n > 0) log.info("🧹 Süresi dolan {} geocode hatası silindi", n);
+        } catch (Exception ex) {
+            log.warn("⚠️ geocode_failures süpürülemedi: {}", ex.getMessage());
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
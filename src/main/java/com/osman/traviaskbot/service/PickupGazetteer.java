@@ -0,0 +1,211 @@
+package com.osman.traviaskbot.service;
+
+import com.osman.traviaskbot.entity.PickupPoint;
+import com.osman.traviaskbot.repository.PickupPointRepository;
+import com.osman.traviaskbot.util.DistrictExtractor;
+import com.osman.traviaskbot.util.TrigramIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Bilinen pickup noktalarının (otellerin) yerel sözlüğü.
+ * <p>
+ * Pickup'ların çoğu aynı birkaç yüz otelin farklı yazılışlarıdır. Her nokta
+ * normalize anahtarıyla bir {@link TrigramIndex}'e girer; yeni bir yazılış
+ * önce birebir anahtarla, sonra trigram benzerliğiyle
+ * ({@code pickup.gazetteer.min-similarity}) çözülür; benzer eşleşmede
+ * adresteki sayılar (kapı no, sokak no) birebir aynı olmalıdır, yoksa
+ * "… Cd. 12" komşu "… Cd. 14"e çözülürdü. Böylece
+ * {@link RouteService#toLatLng} Google'a sadece gerçekten bilinmeyen adresler
+ * için gider, {@link DistrictExtractor} de adreste ilçe adı geçmese bile
+ * otelin ilçesini bulur.
+ * <p>
+ * Sözlük kendiliğinden büyür: Google'ın bir mekâna (otel, işletme) tam
+ * (partial olmayan) eşleşme döndürdüğü adres {@link #learn} ile kaydedilir.
+ * Sokak adresi sonuçları öğrenilmez; onlar zaten geocode önbelleğinde.
+ */
+@Service
+@Slf4j
+public class PickupGazetteer {
+
+    /** benzerlikte sadece gürültü yapan dolgu kelimeleri */
+    private static final Set<String> FILLER = Set.of(
+            "hotel", "hotels", "otel", "oteli", "resort", "spa", "and", "the",
+            "antalya", "turkey", "turkiye", "mah", "mahallesi", "cad", "cd", "caddesi",
+            "sk", "sok", "sokak", "no");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIGITS   = Pattern.compile(".*\\d.*");
+    private static final int     MAX_KEY  = 255;
+
+    public record Match(PickupPoint point, double score) { }
+
+    private final PickupPointRepository repo;
+    private final DistrictExtractor     districts;
+    private final RegionLocator         regions;
+    private final double                minSimilarity;
+
+    private final ReentrantReadWriteLock   lock   = new ReentrantReadWriteLock();
+    private final TrigramIndex             index  = new TrigramIndex();
+    private final List<PickupPoint>        points = new ArrayList<>();     // index id → nokta
+    private final Map<String,PickupPoint>  byKey  = new HashMap<>();
+
+    private final Counter exact, fuzzy, miss;
+
+    public PickupGazetteer(PickupPointRepository repo,
+                           DistrictExtractor districts,
+                           RegionLocator regions,
+                           MeterRegistry meters,
+                           @Value("${pickup.gazetteer.min-similarity:0.65}") double minSimilarity) {
+        this.repo          = repo;
+        this.districts     = districts;
+        this.regions       = regions;
+        this.minSimilarity = minSimilarity;
+        this.exact = meters.counter("pickup.gazetteer.lookups", "outcome", "exact");
+        this.fuzzy = meters.counter("pickup.gazetteer.lookups", "outcome", "fuzzy");
+        this.miss  = meters.counter("pickup.gazetteer.lookups", "outcome", "miss");
+        Gauge.builder("pickup.gazetteer.size", this, PickupGazetteer::size).register(meters);
+    }
+
+    @PostConstruct
+    void hookDistricts() {
+        districts.setFallback(this::districtOf);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            repo.findAll().forEach(this::index);
+            log.info("🏨 Pickup sözlüğü: {} nokta", size());
+        } catch (Exception ex) {
+            // sözlük boşken her adres Google'a gider; işlevsel bir kayıp yok
+            log.warn("⚠️ Pickup sözlüğü yüklenemedi: {}", ex.getMessage());
+        }
+    }
+
+    /** @return bilinen en yakın nokta; benzerlik eşiğin altındaysa boş */
+    public Optional<Match> resolve(String pickup) {
+        String key = key(pickup);
+        if (key.isEmpty()) return Optional.empty();
+
+        lock.readLock().lock();
+        try {
+            PickupPoint p = byKey.get(key);
+            if (p != null) {
+                exact.increment();
+                return Optional.of(new Match(p, 1.0));
+            }
+            TrigramIndex.Hit hit = index.best(key, minSimilarity);
+            if (hit == null || !numbers(key).equals(numbers(points.get(hit.id()).getNameKey()))) {
+                miss.increment();
+                return Optional.empty();
+            }
+            fuzzy.increment();
+            return Optional.of(new Match(points.get(hit.id()), hit.score()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** {@link DistrictExtractor} yedeği: bilinen otelin ilçesi ya da {@code null} */
+    public String districtOf(String pickup) {
+        return resolve(pickup)
+                .map(m -> m.point().getDistrict())
+                .filter(d -> !DistrictExtractor.UNKNOWN.equals(d))
+                .orElse(null);
+    }
+
+    /**
+     * Google'ın onayladığı koordinatı sözlüğe ekler (zaten varsa dokunmaz).
+     * İlçe önce pickup metninden, sonra Google adresinden okunur; ikisinde de
+     * yoksa koordinatın düştüğü ilçe poligonu ({@link RegionLocator}) kullanılır.
+     *
+     * @param formattedAddress Google'ın döndürdüğü adres; pickup'ta ilçe yoksa ondan okunur
+     */
+    public void learn(String pickup, String formattedAddress, double lat, double lng) {
+        String key = key(pickup);
+        if (key.isEmpty()) return;
+        lock.readLock().lock();
+        try {
+            if (byKey.containsKey(key)) return;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        String district = districts.match(pickup);
+        if (district == null) district = districts.match(formattedAddress);
+        if (district == null) district = regions.locate(lat, lng).district();
+        PickupPoint p = new PickupPoint(null, truncate(pickup.strip()), key,
+                district == null ? DistrictExtractor.UNKNOWN : district, lat, lng, "geocode", Instant.now());
+        try {
+            p = repo.save(p);
+        } catch (DataIntegrityViolationException dup) {
+            return;                                     // aynı anda başka istek kaydetti; o indeksler
+        } catch (Exception ex) {
+            // kalıcı olmayan nokta indekslenmez; adres bir sonraki geocode'da tekrar öğrenilir
+            log.warn("⚠️ Pickup noktası kaydedilemedi ({}): {}", pickup, ex.getMessage());
+            return;
+        }
+        index(p);
+        log.info("🏨 Yeni pickup noktası: {} → {} ({}, {})", p.getName(), p.getDistrict(), lat, lng);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return points.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* ————————————————— helpers ————————————————— */
+
+    private void index(PickupPoint p) {
+        lock.writeLock().lock();
+        try {
+            if (byKey.putIfAbsent(p.getNameKey(), p) != null) return;
+            points.add(p);
+            index.add(p.getNameKey());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** "Club Hotel Sera, Lara, Muratpaşa/Antalya" → "club sera lara muratpasa" */
+    static String key(String raw) {
+        if (raw == null || raw.isBlank()) return "";
+        String key = Arrays.stream(NON_WORD.split(DistrictExtractor.normalize(raw)))
+                .filter(w -> !w.isEmpty() && !FILLER.contains(w))
+                .collect(Collectors.joining(" "));
+        return truncate(key);
+    }
+
+    /** anahtardaki rakam içeren kelimeler, sıralı: "side 12 b2" → [12, b2] */
+    private static List<String> numbers(String key) {
+        return Arrays.stream(key.split(" ")).filter(w -> DIGITS.matcher(w).matches()).sorted().toList();
+    }
+
+    private static String truncate(String s) {
+        return s.length() <= MAX_KEY ? s : s.substring(0, MAX_KEY);
+    }
+}
@@ -0,0 +1,145 @@
+package com.osman.traviaskbot.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Bilinen GYG referanslarının Bloom filtresi.
+ * <p>
+ * "Yok" cevabı kesindir: o referanslar DB'ye sorulmadan doğrudan insert'e
+ * gider. "Olabilir" cevabı verenler tek bir {@code reference = ANY(?)}
+ * sorgusuyla doğrulanır. Filtre sadece ön elemedir; doğruluğu yine
+ * {@code ON CONFLICT} ve unique indeks sağlar, bu yüzden elle eklenen
+ * rezervasyonların filtreye girmemesi sorun değildir.
+ * <p>
+ * Başlangıçta tablo akıtılarak doldurulur; yükleme bitene kadar her
+ * referans "olabilir" sayılır. Bellek kullanımı ile tahmini ve gözlenen
+ * yanlış-pozitif oranı {@code /actuator/info} altında raporlanır.
+ */
+@Component
+@Slf4j
+public class ReferenceFilter implements InfoContributor {
+
+    private final JdbcTemplate   jdbc;
+    private final AtomicLongArray bits;
+    private final long           bitCount;
+    private final int            hashes;
+    private final long           expected;
+
+    private final AtomicLong entries        = new AtomicLong();
+    private final AtomicLong maybeChecks    = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private volatile boolean loaded;
+
+    public ReferenceFilter(JdbcTemplate jdbc,
+                           @Value("${ingest.reference-filter.expected:200000}") long expected,
+                           @Value("${ingest.reference-filter.fpp:0.001}") double fpp) {
+        this.jdbc     = jdbc;
+        this.expected = Math.max(1, expected);
+        // m = -n·ln p / (ln 2)², k = m/n · ln 2
+        long m = (long) Math.ceil(-this.expected * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, (m + 63) / 64 * 64);
+        this.hashes   = Math.max(1, (int) Math.round((double) bitCount / this.expected * Math.log(2)));
+        this.bits     = new AtomicLongArray((int) (bitCount / 64));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        try (Stream<String> refs = jdbc.queryForStream(
+                "SELECT reference FROM reservations WHERE reference IS NOT NULL",
+                (rs, i) -> rs.getString(1))) {
+            refs.forEach(this::add);
+        } catch (Exception ex) {
+            // filtre olmadan da doğru çalışır; sadece her referans DB'ye sorulur
+            log.warn("⚠️ Referans filtresi yüklenemedi: {}", ex.getMessage());
+            return;
+        }
+        loaded = true;
+        log.info("🧮 Referans filtresi: {} referans, {} KB, tahmini FPP {} ({} ms)",
+                entries.get(), bitCount / 8 / 1024, String.format("%.5f", estimatedFpp()),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** false → referans kesinlikle kayıtlı değil */
+    public boolean mightContain(String reference) {
+        if (!loaded) return true;
+        long h1 = hash(reference), h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    public void add(String reference) {
+        long h1 = hash(reference), h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int  idx = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long cur;
+            while (((cur = bits.get(idx)) & mask) == 0 && !bits.compareAndSet(idx, cur, cur | mask)) { }
+        }
+        entries.incrementAndGet();
+    }
+
+    /** DB doğrulamasının sonucu: "olabilir" denen {@code checked} referanstan {@code absent} tanesi yokmuş */
+    public void recordCheck(int checked, int absent) {
+        if (!loaded) return;     // yükleme öncesi her şey "olabilir"; oranı bozmasın
+        maybeChecks.addAndGet(checked);
+        falsePositives.addAndGet(absent);
+    }
+
+    /** (1 - e^(-k·n/m))^k */
+    public double estimatedFpp() {
+        return Math.pow(1 - Math.exp(-(double) hashes * entries.get() / bitCount), hashes);
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        Map<String,Object> d = new LinkedHashMap<>();
+        d.put("loaded",         loaded);
+        d.put("entries",        entries.get());
+        d.put("expected",       expected);
+        d.put("bytes",          bitCount / 8);
+        d.put("hashes",         hashes);
+        d.put("estimatedFpp",   estimatedFpp());
+        d.put("maybeChecks",    maybeChecks.get());
+        d.put("falsePositives", falsePositives.get());
+        d.put("observedFpp",    maybeChecks.get() == 0 ? 0.0 : (double) falsePositives.get() / maybeChecks.get());
+        builder.withDetail("referenceFilter", d);
+    }
+
+    /* ————————————————— helpers ————————————————— */
+
+    /** FNV-1a (64 bit) + karıştırma; referanslar kısa ASCII dizeler */
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /** splitmix64 sonlandırıcısı */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,160 @@
+package com.osman.traviaskbot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osman.traviaskbot.controller.RouteController.Region;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Koordinattan ilçe ve rota bölgesi (KEMER / SIDE / OTHER) bulur.
+ * <p>
+ * Sınırlar {@code regions.geojson} içindeki poligonlardan gelir; her
+ * feature'ın {@code district} ve {@code region} özelliği vardır; {@code district}
+ * değerleri {@code district-aliases.csv}'deki ilçe etiketleriyle birebir aynı
+ * yazılır ki metinden ve koordinattan gelen ilçe karşılaştırılabilsin. Poligonlar
+ * ~1 km'lik düzenli bir ızgaraya yerleştirilir: sorgu hücreyi bulur, sadece
+ * o hücreye değen (genelde bir-iki) poligonda ışın testi yapar. Misafirin
+ * oteli nasıl yazdığından bağımsızdır; hiçbir poligona düşmeyen nokta OTHER.
+ */
+@Component
+@Slf4j
+public class RegionLocator {
+
+    public record Area(String district, Region region) {
+        public static final Area NONE = new Area(null, Region.OTHER);
+    }
+
+    private static final double CELL  = 0.01;            // derece, ≈1 km
+    private static final int[]  EMPTY = new int[0];
+
+    private final Polygon[] polygons;
+    private final double    minLng, minLat;
+    private final int       cols, rows;
+    private final int[][]   cells;                        // satır*cols+sütun → poligon id'leri
+
+    public RegionLocator(@Value("${regions.location:classpath:regions.geojson}") Resource geojson) throws IOException {
+        this(parse(geojson));
+        log.info("🧭 Bölge sınırları: {} poligon, {}x{} ızgara ({})",
+                polygons.length, cols, rows, geojson.getDescription());
+    }
+
+    RegionLocator(List<Polygon> polys) {
+        if (polys.isEmpty()) throw new IllegalStateException("regions.geojson içinde poligon yok");
+        this.polygons = polys.toArray(Polygon[]::new);
+
+        double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+        for (Polygon p : polygons) {
+            x0 = Math.min(x0, p.minX); y0 = Math.min(y0, p.minY);
+            x1 = Math.max(x1, p.maxX); y1 = Math.max(y1, p.maxY);
+        }
+        this.minLng = x0;
+        this.minLat = y0;
+        this.cols   = Math.max(1, (int) Math.ceil((x1 - x0) / CELL));
+        this.rows   = Math.max(1, (int) Math.ceil((y1 - y0) / CELL));
+
+        this.cells = new int[cols * rows][];
+        Arrays.fill(cells, EMPTY);
+        for (int id = 0; id < polygons.length; id++) {
+            Polygon p = polygons[id];
+            for (int r = row(p.minY); r <= row(p.maxY); r++)
+                for (int c = col(p.minX); c <= col(p.maxX); c++) {
+                    int[] old = cells[r * cols + c];
+                    int[] grown = Arrays.copyOf(old, old.length + 1);
+                    grown[old.length] = id;
+                    cells[r * cols + c] = grown;
+                }
+        }
+    }
+
+    public Area locate(double lat, double lng) {
+        int c = (int) Math.floor((lng - minLng) / CELL);
+        int r = (int) Math.floor((lat - minLat) / CELL);
+        if (c < 0 || r < 0 || c >= cols || r >= rows) return Area.NONE;
+        for (int id : cells[r * cols + c]) {
+            if (polygons[id].contains(lng, lat)) return polygons[id].area;
+        }
+        return Area.NONE;
+    }
+
+    /** @param latLng {@code [lat, lng]} – {@link RouteService#toLatLng} çıktısı */
+    public Region regionOf(double[] latLng) {
+        return locate(latLng[0], latLng[1]).region();
+    }
+
+    /* ————————————————— helpers ————————————————— */
+
+    private int col(double lng) {
+        return Math.min(cols - 1, Math.max(0, (int) Math.floor((lng - minLng) / CELL)));
+    }
+
+    private int row(double lat) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((lat - minLat) / CELL)));
+    }
+
+    static List<Polygon> parse(Resource geojson) throws IOException {
+        JsonNode root;
+        try (InputStream in = geojson.getInputStream()) {
+            root = new ObjectMapper().readTree(in);
+        }
+        List<Polygon> out = new ArrayList<>();
+        for (JsonNode f : root.path("features")) {
+            JsonNode props = f.path("properties");
+            Area area = new Area(props.path("district").asText(null),
+                    Region.valueOf(props.path("region").asText(Region.OTHER.name())));
+            JsonNode geom = f.path("geometry");
+            switch (geom.path("type").asText()) {
+                case "Polygon"      -> out.add(Polygon.of(area, geom.path("coordinates")));
+                case "MultiPolygon" -> geom.path("coordinates").forEach(rings -> out.add(Polygon.of(area, rings)));
+                default -> log.warn("⚠️ Desteklenmeyen geometri atlandı: {} ({})",
+                        geom.path("type").asText(), area.district());
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Halkalar (dış sınır + delikler) {@code x0,y0,x1,y1,…} düz dizileri olarak
+     * tutulur; çift-tek kuralı delikleri kendiliğinden dışarıda bırakır.
+     */
+    record Polygon(Area area, double[][] rings, double minX, double minY, double maxX, double maxY) {
+
+        static Polygon of(Area area, JsonNode rings) {
+            double[][] rs = new double[rings.size()][];
+            double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+            for (int i = 0; i < rs.length; i++) {
+                JsonNode ring = rings.get(i);
+                rs[i] = new double[ring.size() * 2];
+                for (int k = 0; k < ring.size(); k++) {
+                    double x = ring.get(k).get(0).asDouble(), y = ring.get(k).get(1).asDouble();
+                    rs[i][2 * k] = x;
+                    rs[i][2 * k + 1] = y;
+                    x0 = Math.min(x0, x); y0 = Math.min(y0, y);
+                    x1 = Math.max(x1, x); y1 = Math.max(y1, y);
+                }
+            }
+            return new Polygon(area, rs, x0, y0, x1, y1);
+        }
+
+        boolean contains(double x, double y) {
+            if (x < minX || x > maxX || y < minY || y > maxY) return false;
+            boolean inside = false;
+            for (double[] r : rings) {
+                int n = r.length / 2;
+                for (int i = 0, j = n - 1; i < n; j = i++) {
+                    double xi = r[2 * i], yi = r[2 * i + 1], xj = r[2 * j], yj = r[2 * j + 1];
+                    if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) inside = !inside;
+                }
+            }
+            return inside;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.osman.traviaskbot.service;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Rezervasyon eklendi / değişti / iptal edildi; etkilenen günler.
+ * Rota planları sadece bu günleri kapsayanlar için yeniden hesaplanır.
+ */
+public record ReservationDatesTouchedEvent(Set<LocalDate> dates) { }
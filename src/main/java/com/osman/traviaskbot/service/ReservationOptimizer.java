@@ -1,6 +1,5 @@
 package com.osman.traviaskbot.service;
 
-import com.osman.traviaskbot.controller.RouteController.Region;
 import com.osman.traviaskbot.entity.Reservation;
 import com.osman.traviaskbot.repository.ReservationRepository;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +18,7 @@ public class ReservationOptimizer {
     private final ReservationRepository reservationRepository;
     private final GeocodingService geocodingService;
     private final VrpService vrpService;
+    private final RegionLocator regionLocator;
 
     /** Depo koordinatı (Land of Legends) */
     private static final double[] DEPOT = {36.876074, 31.086317};
@@ -40,22 +40,17 @@ public class ReservationOptimizer {
         int numVehicles = driverStarts.size();
 
         /* 3) Pickup koordinatları & yolcu & bölge kodu */
-        Map<String,double[]> cache = new HashMap<>();
         List<double[]> pickups = new ArrayList<>();
         List<Integer>  paxList = new ArrayList<>();
         List<Integer>  regions = new ArrayList<>();
 
         for (Reservation r : valid) {
             try {
-                double[] ll = cache.computeIfAbsent(
-                        r.getPickup(),
-                        k -> geocodingService.geocode(k)
-                );
+                // tekrar eden oteller servis önbelleğinden gelir
+                double[] ll = geocodingService.geocode(r.getPickup());
                 pickups.add(ll);
                 paxList.add(r.getAdults() + r.getChildren());
-
-                /* varsayılan OTHER – dilerseniz ilçe kontrolü ekleyin */
-                regions.add(Region.OTHER.ordinal());
+                regions.add(regionLocator.regionOf(ll).ordinal());
 
             } catch (Exception ex) {
                 log.warn("❗ Geocode atlandı: {}", r.getPickup(), ex);
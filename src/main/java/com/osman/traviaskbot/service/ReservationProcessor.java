@@ -1,68 +1,161 @@
 package com.osman.traviaskbot.service;
 
+import com.osman.traviaskbot.config.ImapConnectionManager;
+import com.osman.traviaskbot.config.ImapProperties;
 import com.osman.traviaskbot.controller.RouteController;
 import com.osman.traviaskbot.dto.ReservationDto;
+import com.osman.traviaskbot.entity.CancelledMail;
+import com.osman.traviaskbot.entity.ChangedMail;
+import com.osman.traviaskbot.entity.MailWatermark;
 import com.osman.traviaskbot.entity.Reservation;
 import com.osman.traviaskbot.entity.Route;
 import com.osman.traviaskbot.entity.UnparsedMail;
+import com.osman.traviaskbot.repository.CancelledMailRepository;
+import com.osman.traviaskbot.repository.ChangedMailRepository;
+import com.osman.traviaskbot.repository.MailWatermarkRepository;
+import com.osman.traviaskbot.repository.ReservationBatchWriter;
 import com.osman.traviaskbot.repository.ReservationRepository;
 import com.osman.traviaskbot.repository.UnparsedMailRepository;
-import com.osman.traviaskbot.util.DistrictExtractor;
+import com.osman.traviaskbot.util.BookingMailParser;
+import com.osman.traviaskbot.util.MailParserRegistry;
+import com.osman.traviaskbot.util.MailBodyExtractor;
 import jakarta.mail.*;
-import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.search.AndTerm;
+import jakarta.mail.search.ComparisonTerm;
 import jakarta.mail.search.FlagTerm;
+import jakarta.mail.search.SizeTerm;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
+import org.eclipse.angus.mail.imap.IMAPFolder;
+import org.eclipse.angus.mail.imap.IMAPMessage;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayInputStream;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import com.osman.traviaskbot.config.EnvConfig;
+import java.util.concurrent.TimeUnit;
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ReservationProcessor {
 
-    private static final String HOST       = "imap.gmail.com";
     private static final int    MAX_EMAILS = 5000;
 
     private final ReservationRepository reservationRepo;
+    private final ReservationBatchWriter batchWriter;
     private final UnparsedMailRepository unparsedRepo;
-    private final DistrictExtractor      districtExtractor;
+    private final MailWatermarkRepository watermarkRepo;
+    private final MailParserRegistry     parsers;
+    private final MailBodyExtractor      bodyExtractor;
     private final RouteService           routeService;
+    private final RegionLocator          regionLocator;
     private final VrpService             vrpService;
+    private final ImapProperties         imap;
+    private final ImapConnectionManager  imapConnections;
+    private final MailArchive            archive;
+    private final CancelledMailRepository cancelledRepo;
+    private final ChangedMailRepository  changedRepo;
+    private final TransactionTemplate    tx;
+    private final ApplicationEventPublisher events;
+    private final ReferenceFilter        referenceFilter;
+    private final IngestMetrics          metrics;
+
+    /** Aşamalar arası kuyruk kapasitesi – bellekte aynı anda tutulan en fazla mail */
+    @Value("${ingest.queue-capacity:64}")
+    private int queueCapacity;
+
+    /** Tek INSERT batch'inde yazılan en fazla rezervasyon */
+    @Value("${ingest.batch-size:100}")
+    private int batchSize;
+
+    /** Paralel parse thread sayısı; 0 → çekirdek sayısı */
+    @Value("${ingest.parse-workers:0}")
+    private int parseWorkers;
+
+    /** Tek FETCH komutunda başlık + gövdesi çekilen mail sayısı */
+    @Value("${ingest.fetch-batch-size:50}")
+    private int fetchBatchSize;
+
+    /** Bundan büyük mailler bütün olarak çekilmez; sadece metin parçası akıtılır */
+    @Value("${mail.body.max-message-bytes:2097152}")
+    private int maxMessageBytes;
+
+    /**
+     * Tek IMAP taraması. Sadece {@link IngestJobCoordinator} çağırır; aynı
+     * anda tek tarama çalışmasını o garanti eder.
+     */
+    IngestPipeline.Result ingest(IngestJob job) throws Exception {
+        IngestPipeline pipeline = newPipeline(true, true, true, "imap");
+        job.attach(pipeline);
+        IngestPipeline.Result res;
+        try {
+            fetchInto(pipeline, job);
+        } finally {
+            res = pipeline.finish();
+            log.info("🔄 Mail tarama #{} tamam → ok={} fail={} duplicate={}",
+                    job.getId(), res.ok(), res.fail(), res.duplicate());
+        }
+        return res;
+    }
 
-
-    private final String gmailUser = com.osman.traviaskbot.config.EnvConfig.getGmailUser();
-    private final String gmailPass = com.osman.traviaskbot.config.EnvConfig.getGmailPassword();
-
-
-    public void processReservations() {
-        int ok = 0, fail = 0;
-        for (String body : fetchEmailBodies()) {
-            try {
-                Map<String,Object> data = parseEmail(body);
-                if (data == null) {
-                    logUnparsed(body);
-                    fail++;
-                } else {
-                    saveReservation(data);
-                    ok++;
-                }
-            } catch (Exception ex) {
-                log.error("⛔ Mail parse exception", ex);
-                fail++;
-            }
+    /**
+     * Ham mail arşivini IMAP'e gitmeden parser'dan geçirir. Sadece
+     * {@link IngestJobCoordinator} çağırır; taramalarla aynı anda çalışmaz.
+     *
+     * @param persist false ise sadece parse edilir (parser değişikliği doğrulama);
+     *                hiçbir şey yazılmaz
+     */
+    IngestPipeline.Result replayArchive(IngestJob job, boolean persist) throws Exception {
+        Session session = Session.getInstance(new Properties());
+        // UID'ler SEEN / watermark için gerekmez; arşiv boyunda liste tutulmaz.
+        // Mailler ilk taramada zaten unparsed / changed / cancelled kayıtlarına girdi;
+        // replay tekrar yazmaz, kaç kez çalışırsa çalışsın aynı sonucu verir
+        IngestPipeline pipeline = newPipeline(persist, false, false, "replay");
+        job.attach(pipeline);
+
+        long started = System.nanoTime();
+        long records;
+        IngestPipeline.Result res;
+        try {
+            records = archive.replay((uid, received, raw) -> {
+                MimeMessage m = new MimeMessage(session, new ByteArrayInputStream(raw));
+                pipeline.submit(uid, senderOf(m), m);
+                job.submitted();
+            });
+            job.matched((int) records);
+        } finally {
+            res = pipeline.finish();
         }
-        log.info("🔄 Mail tarama tamam → ok={} fail={}", ok, fail);
+        log.info("🗄️ Arşiv replay #{} ({}) → {} mail, ok={} fail={} duplicate={} – {} ms",
+                job.getId(), persist ? "persist" : "dry-run", records, res.ok(), res.fail(), res.duplicate(),
+                (System.nanoTime() - started) / 1_000_000);
+        return res;
+    }
+
+    /**
+     * Ortak ayarlarla yeni pipeline.
+     *
+     * @param persist     false → rezervasyon yazılmaz, parse edilenler ok sayılır
+     * @param logUnparsed false → parse edilemeyenler unparsed_mails'e, değişiklik / iptal
+     *                    mailleri changed_mails / cancelled_mails'e eklenmez, bekleyenler
+     *                    tekrar park edilmez (mail daha önce işlendi: replay, yeniden işleme)
+     * @param trackUids   false → sonuçta committed / persisted UID listesi olmaz
+     * @param source      metrik etiketi (imap | replay | reprocess)
+     */
+    IngestPipeline newPipeline(boolean persist, boolean logUnparsed, boolean trackUids, String source) {
+        int workers = parseWorkers > 0 ? parseWorkers : Runtime.getRuntime().availableProcessors();
+        return new IngestPipeline(queueCapacity, batchSize, workers, trackUids, bodyExtractor::extract,
+                this::parseEmail,
+                persist ? batch -> saveReservations(batch, logUnparsed) : List::size,
+                logUnparsed ? this::logUnparsed : (sender, body) -> { },
+                metrics.source(source));
     }
 
     public List<ReservationDto> fetchDtos(LocalDate after) {
@@ -71,8 +164,8 @@ public class ReservationProcessor {
 
     public List<ReservationDto> fetchDtos(LocalDate after, String tourFilter) {
         var stream = (tourFilter == null || tourFilter.isBlank())
-                ? reservationRepo.findByDateGreaterThanEqualOrderByDateAscTimeAsc(after).stream()
-                : reservationRepo.findByDateGreaterThanEqualAndTourOrderByDateAscTimeAsc(after, tourFilter).stream();
+                ? reservationRepo.findActiveFrom(after).stream()
+                : reservationRepo.findActiveFromByTour(after, tourFilter).stream();
 
         return stream
                 .filter(r -> r.getPickup() != null && !r.getPickup().isBlank())
@@ -84,28 +177,40 @@ public class ReservationProcessor {
         List<ReservationDto> dtos = fetchDtos(after);
         if (dtos.isEmpty()) return Collections.emptyList();
 
+        GeocodingService.Batch geo;
+        try {
+            List<String> addrs = new ArrayList<>(RouteController.DRIVER_ADDRS);
+            dtos.forEach(d -> addrs.add(d.getPickup()));
+            geo = routeService.toLatLngAll(addrs);            // paralel, kota sınırlı
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        }
+
         List<double[]> hubs       = new ArrayList<>();
         List<Boolean>  kemerFlags = new ArrayList<>();
         for (String addr : RouteController.DRIVER_ADDRS) {
-            try {
-                hubs.add(routeService.toLatLng(addr));
-                kemerFlags.add(addr.toLowerCase().contains("kemer"));
-            } catch (Exception e) {
-                log.error("Hub geocode error: {}", addr, e);
+            double[] ll = geo.coords().get(addr);
+            if (ll == null) {
+                log.error("Hub geocode error: {} ({})", addr, geo.reason(addr));
+                continue;
             }
+            hubs.add(ll);
+            kemerFlags.add(regionLocator.regionOf(ll) == RouteController.Region.KEMER);
         }
 
         List<double[]> pickups = new ArrayList<>();
         List<Integer>  pax     = new ArrayList<>();
         List<Integer>  regions = new ArrayList<>();
         for (ReservationDto d : dtos) {
-            try {
-                pickups.add(routeService.toLatLng(d.getPickup()));
-                pax.add(d.getAdults() + d.getChildren());
-                regions.add(regionCode(d.getDistrict()));
-            } catch (Exception ex) {
-                log.warn("⛔ Pickup geocode atlandı: {}", d.getPickup());
+            double[] ll = geo.coords().get(d.getPickup());
+            if (ll == null) {
+                log.warn("⛔ Pickup geocode atlandı: {} ({})", d.getPickup(), geo.reason(d.getPickup()));
+                continue;
             }
+            pickups.add(ll);
+            pax.add(d.getAdults() + d.getChildren());
+            regions.add(regionLocator.regionOf(ll).ordinal());
         }
         if (pickups.isEmpty()) return Collections.emptyList();
 
@@ -120,118 +225,274 @@ public class ReservationProcessor {
         return routes;
     }
 
-    private List<String> fetchEmailBodies() {
-        List<String> bodies = new ArrayList<>();
-        try (Store store = Session.getDefaultInstance(new Properties()).getStore("imaps")) {
-            store.connect(HOST, gmailUser, gmailPass);
-            Folder inbox = store.getFolder("INBOX");
-            inbox.open(Folder.READ_WRITE);
-
-            Message[] msgs = inbox.search(new FlagTerm(new Flags(Flags.Flag.SEEN), false));
-            for (int i = Math.max(0, msgs.length - MAX_EMAILS); i < msgs.length; i++) {
-                Message msg = msgs[i];
-                if (!isValidSender(msg)) continue;
-                String body = extractBody(msg);
-                if (body != null && !body.isBlank()) {
-                    bodies.add(body);
-                    // 3️⃣ Mark as read
-                    msg.setFlag(Flags.Flag.SEEN, true);
+    /**
+     * Watermark'tan sonraki mesajları pipeline'a akıtır.
+     * <ul>
+     *   <li>UID aralığı tek UID FETCH, gönderen filtresi tek SEARCH ile sunucuda</li>
+     *   <li>başlık + gövde FetchProfile ile {@code fetchBatchSize}'lık parçalar halinde</li>
+     *   <li>SEEN bayrakları DB'ye yazıldıktan sonra tek STORE ile</li>
+     * </ul>
+     * Watermark ancak pipeline boşaldıktan sonra ilerletilir; gövdesi okunamayan ya da persist'te hata
+     * alan ilk mailin altında bırakılır ki sonraki taramada yeniden denensin.
+     */
+    private void fetchInto(IngestPipeline pipeline, IngestJob job) throws Exception {
+        final String folder = imap.getFolder();
+        IngestMetrics.Recorder rec = metrics.source("imap");
+        imapConnections.withFolder(inbox -> {
+            UIDFolder uids = inbox;
+
+            long validity = uids.getUIDValidity();
+            MailWatermark wm = watermarkRepo.findById(folder)
+                    .filter(w -> w.getUidValidity() == validity)
+                    .orElse(null);
+            // arşiv UID kıyasını bu dönemin segmentleriyle yapar
+            archive.useUidValidity(validity);
+
+            long searchStart = System.nanoTime();
+            Message[] matched;
+            long lastUid = wm == null ? 0 : wm.getLastUid();
+            long maxUid  = lastUid;
+            if (wm == null) {
+                // İlk çalışma ya da UIDVALIDITY değişti → bir kereliğine eski UNSEEN taraması
+                log.warn("📌 {} için geçerli watermark yok (uidValidity={}), UNSEEN taramasıyla başlatılıyor",
+                        folder, validity);
+                Message[] unseen = inbox.search(new AndTerm(
+                        new FlagTerm(new Flags(Flags.Flag.SEEN), false), parsers.senderTerm()));
+                matched = Arrays.copyOfRange(unseen, Math.max(0, unseen.length - MAX_EMAILS), unseen.length);
+                // Bootstrap'ta kutudaki mevcut her şey işlenmiş sayılır
+                maxUid = Math.max(0, uids.getUIDNext() - 1);
+            } else {
+                List<Message> fresh = new ArrayList<>();
+                for (Message m : uids.getMessagesByUID(lastUid + 1, UIDFolder.LASTUID)) {
+                    if (fresh.size() >= MAX_EMAILS) break;
+                    long uid = uids.getUID(m);
+                    // "n:*" aralığı boşsa sunucu yine de son mesajı döndürür
+                    if (uid <= lastUid) continue;
+                    fresh.add(m);
+                    maxUid = Math.max(maxUid, uid);
                 }
+                matched = fresh.isEmpty()
+                        ? new Message[0]
+                        : inbox.search(parsers.senderTerm(), fresh.toArray(Message[]::new));
+            }
 
+            rec.search.record(System.nanoTime() - searchStart, TimeUnit.NANOSECONDS);
+            job.matched(matched.length);
+
+            FetchProfile whole = new FetchProfile();
+            whole.add(FetchProfile.Item.ENVELOPE);
+            whole.add(FetchProfile.Item.FLAGS);
+            whole.add(UIDFolder.FetchProfileItem.UID);
+            whole.add(IMAPFolder.FetchProfileItem.MESSAGE);   // BODY.PEEK[] – SEEN'e dokunmaz
+
+            FetchProfile structure = new FetchProfile();
+            structure.add(FetchProfile.Item.ENVELOPE);
+            structure.add(FetchProfile.Item.FLAGS);
+            structure.add(UIDFolder.FetchProfileItem.UID);
+            structure.add(FetchProfile.Item.CONTENT_INFO);      // BODYSTRUCTURE
+
+            // büyük (ekli) mailler tek SEARCH LARGER ile ayrılır; onlar için sadece
+            // BODYSTRUCTURE + ilk metin parçası çekilir, ekler indirilmez
+            Set<Message> large = matched.length == 0 ? Set.of()
+                    : new HashSet<>(Arrays.asList(
+                            inbox.search(new SizeTerm(ComparisonTerm.GT, maxMessageBytes), matched)));
+
+            final int found = matched.length;
+            IngestPipeline.Result res;
+            IngestMetrics.Registration backlog = metrics.backlog(() -> found - pipeline.completed());
+            try {
+                for (int i = 0; i < matched.length; i += fetchBatchSize) {
+                    Message[] chunk = Arrays.copyOfRange(matched, i, Math.min(i + fetchBatchSize, matched.length));
+                    long t0 = System.nanoTime();
+                    if (large.isEmpty()) {
+                        inbox.fetch(chunk, whole);
+                    } else {
+                        Message[] small = Arrays.stream(chunk).filter(m -> !large.contains(m)).toArray(Message[]::new);
+                        Message[] big   = Arrays.stream(chunk).filter(large::contains).toArray(Message[]::new);
+                        if (small.length > 0) inbox.fetch(small, whole);
+                        if (big.length > 0)   inbox.fetch(big, structure);
+                    }
+                    rec.fetch.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+                    for (Message m : chunk) {
+                        long uid = uids.getUID(m);
+                        // gövde zaten yerelde, ek round-trip yok; büyükler arşivlenmez (writeTo tamamını indirir).
+                        // yeniden denemede tekrar gelen UID'leri arşiv kendisi atlar
+                        if (large.contains(m)) log.info("📎 uid={} {} byte üstü, arşivlenmedi", uid, maxMessageBytes);
+                        else archive.append(uid, m);
+                        pipeline.submit(uid, senderOf(m), m);
+                        job.submitted();
+                    }
+                }
+                res = pipeline.finish();
+            } finally {
+                backlog.close();
+            }
 
+            if (!res.committed().isEmpty()) {
+                long[] done = res.committed().stream().mapToLong(Long::longValue).toArray();
+                // mesajlar zaten önbellekte; UID → Message eşlemesi round-trip yapmaz
+                inbox.setFlags(uids.getMessagesByUID(done), new Flags(Flags.Flag.SEEN), true);
             }
-            inbox.close(false);
-        } catch (Exception ex) {
-            log.error("✉️ IMAP okuma hatası", ex);
-        }
-        return bodies;
-    }
 
-    private boolean isValidSender(Message m) throws MessagingException {
-        Address[] from = m.getFrom();
-        return from != null && from[0].toString().toLowerCase(Locale.ROOT)
-                .contains("@notification.getyourguide.com");
+            long safeUid = Math.min(maxUid, res.firstRetryUid() - 1);
+            watermarkRepo.save(new MailWatermark(folder, validity, safeUid, Instant.now()));
+            log.debug("📌 Watermark {} → uid={} ({} GYG maili)", folder, safeUid, matched.length);
+
+            // klasör açık kalıyor; işlenen mesajların başlık önbelleğini bırak
+            for (Message m : matched) ((IMAPMessage) m).invalidateHeaders();
+            return null;
+        });
     }
 
-    private String extractBody(Part p) throws Exception {
-        if (p.isMimeType("text/plain")) return p.getContent().toString();
-        if (p.isMimeType("text/html"))  return Jsoup.parse(p.getContent().toString()).text();
-        if (p.isMimeType("multipart/*")) {
-            MimeMultipart mp = (MimeMultipart) p.getContent();
-            for (int i = 0; i < mp.getCount(); i++) {
-                String s = extractBody(mp.getBodyPart(i));
-                if (s != null) return s;
-            }
+    /**
+     * @param sender gönderen adresi – çözücü buna göre seçilir
+     * @param text   {@link MailBodyExtractor} çıktısı – zaten kanonik, tekrar Jsoup'a sokulmaz
+     */
+    private Map<String,Object> parseEmail(String sender, String text) {
+        Map<String,Object> d = parsers.parse(sender, text);
+        // değişiklik / iptal mailleri changed_mails / cancelled_mails'e de yazılır;
+        // rezervasyonu yoksa gönderenle birlikte beklemeye alınır
+        if (d != null && !BookingMailParser.KIND_BOOKING.equals(d.get("kind"))) {
+            d.put("body", text);
+            d.put("sender", sender);
         }
-        return null;
+        return d;
     }
 
-    private Map<String,Object> parseEmail(String rawHtml) {
-        String text = Jsoup.parse(rawHtml).text();
-        Map<String,Object> r = new HashMap<>();
+    /** Zarf zaten çekili; ağ erişimi yok */
+    private static String senderOf(Message m) throws MessagingException {
+        Address[] from = m.getFrom();
+        if (from == null || from.length == 0) return null;
+        return from[0] instanceof InternetAddress ia ? ia.getAddress() : from[0].toString();
+    }
 
-        String ref = match(text,"Reference number:\\s*(GYG\\w+)");
-        if (ref == null) return null;
-        r.put("reference", ref);
+    /**
+     * Batch'i türüne göre ayırıp tek transaction'da yazar: yeni rezervasyonlar
+     * ON CONFLICT ile eklenir, ardından değişiklikler ve iptaller referansa
+     * göre toplu uygulanır. Commit'ten sonra etkilenen günler yayınlanır.
+     * <p>
+     * Rezervasyonu henüz DB'de olmayan değişiklik / iptal (rezervasyon maili
+     * watermark'tan önce kalmış ya da geç gelecek) kaybolmasın diye referansıyla
+     * unparsed_mails'e yazılır ve {@link IngestPipeline#DEFERRED} ile işaretlenir;
+     * o referansın rezervasyonu eklendiği transaction'da uygulanıp silinir.
+     *
+     * @param logMails false → mail daha önce işlendi (replay, yeniden işleme): bekleyenler
+     *                 zaten unparsed_mails'te, changed / cancelled kayıtları zaten var; tekrar yazılmaz
+     * @return eklenen + güncellenen satır; fark çift ya da bekleyen mailler
+     */
+    private int saveReservations(List<Map<String,Object>> batch, boolean logMails) {
+        List<Reservation>       bookings  = new ArrayList<>();
+        Map<String,Reservation> changes   = new LinkedHashMap<>();
+        List<String>            cancels   = new ArrayList<>();
+        List<Map<String,Object>> deltas   = new ArrayList<>();
+        List<ChangedMail>       changedLog   = new ArrayList<>();
+        List<CancelledMail>     cancelledLog = new ArrayList<>();
+
+        for (Map<String,Object> d : batch) {
+            String kind = (String) d.getOrDefault("kind", BookingMailParser.KIND_BOOKING);
+            if (BookingMailParser.KIND_BOOKING.equals(kind)) bookings.add(toEntity(d));
+            else deltas.add(d);
+        }
 
-        String[] dt = matchGroups(text,
-                "Date:\\s*([A-Za-z]+ \\d{1,2}, \\d{4})\\s+(\\d{1,2}:\\d{2}\\s*[AP]M)",
-                "Tarih:\\s*(\\d{1,2} [A-Za-zçğıöşüÇĞİÖŞÜ]+ \\d{4})\\s+(\\d{1,2}:\\d{2})"
-        );
-        if (dt == null) return null;
+        // filtre "yok" diyenler doğrudan insert'e; sadece "olabilir"ler DB'de doğrulanır
+        List<String> maybe = bookings.stream().map(Reservation::getReference)
+                .filter(referenceFilter::mightContain).toList();
+        Set<String> known = batchWriter.existingReferences(maybe);
+        referenceFilter.recordCheck(maybe.size(), maybe.size() - known.size());
+        List<Reservation> fresh = known.isEmpty() ? bookings
+                : bookings.stream().filter(r -> !known.contains(r.getReference())).toList();
+
+        // değişiklik / iptalin rezervasyonu ya DB'de ya da bu batch'te olmalı
+        Set<String> present = new HashSet<>(bookings.stream().map(Reservation::getReference).toList());
+        present.addAll(batchWriter.existingReferences(deltas.stream()
+                .map(d -> (String) d.get("reference"))
+                .filter(ref -> !present.contains(ref) && referenceFilter.mightContain(ref))
+                .distinct().toList()));
+        List<UnparsedMail> deferred = new ArrayList<>();
+
+        for (Map<String,Object> d : deltas) {
+            String ref  = (String) d.get("reference");
+            String body = head((String) d.get("body"));
+            boolean cancel = BookingMailParser.KIND_CANCELLATION.equals(d.get("kind"));
+            if (logMails) {
+                if (cancel) cancelledLog.add(new CancelledMail(null, body, Instant.now()));
+                else        changedLog.add(new ChangedMail(null, body, Instant.now()));
+            }
 
-        LocalDate date;
-        try {
-            date = LocalDate.parse(dt[0],
-                    DateTimeFormatter.ofPattern("MMMM d, yyyy", Locale.ENGLISH));
-        } catch (DateTimeParseException e) {
-            date = LocalDate.parse(dt[0],
-                    DateTimeFormatter.ofPattern("d MMMM yyyy", new Locale("tr")));
-        }
-        DateTimeFormatter tf = DateTimeFormatter.ofPattern("h:mm a", Locale.ENGLISH);
-        LocalTime time = LocalTime.parse(dt[1].toUpperCase(Locale.ROOT), tf);
-        r.put("date", date);
-        r.put("time", time);
-
-        // —— Sadece Suluada veya Land of Legends tespit et
-        String tourLine = nvl(match(text,"offer has been booked:\\s*([^\\r\\n]+)"));
-        String lower = tourLine.toLowerCase(Locale.ROOT);
-        String tour;
-        if (lower.contains("suluada")) {
-            tour = "Suluada";
-        } else if (lower.contains("legends")) {
-            tour = "Land of Legends";
-        } else {
-            tour = "";
+            if (!present.contains(ref)) {
+                d.put(IngestPipeline.DEFERRED, Boolean.TRUE);
+                if (logMails) deferred.add(new UnparsedMail(null, body, Instant.now(), (String) d.get("sender"), ref));
+            } else if (cancel) {
+                cancels.add(ref);
+            } else {
+                changes.merge(ref, toChange(d), ReservationProcessor::mergeChange);
+            }
         }
-        r.put("tour", tour);
 
-        // opsiyon ismine artık gerek yoksa boş bırakabilirsiniz
-        r.put("option", "");
+        Set<LocalDate> touched = new HashSet<>();
+        int written = tx.execute(status -> {
+            // bilinen çiftler INSERT'e hiç gitmez → IDENTITY sırası boşa harcanmaz
+            List<Reservation> inserted = batchWriter.insertIgnoringDuplicates(fresh);
+            inserted.forEach(r -> touched.add(r.getDate()));
+            if (!inserted.isEmpty()) applyPending(inserted, touched);
+
+            ReservationBatchWriter.Applied changed   = batchWriter.applyChanges(List.copyOf(changes.values()));
+            ReservationBatchWriter.Applied cancelled = batchWriter.cancelByReference(cancels, "gyg-mail");
+            touched.addAll(changed.dates());
+            touched.addAll(cancelled.dates());
+
+            if (!changedLog.isEmpty())   changedRepo.saveAll(changedLog);
+            if (!cancelledLog.isEmpty()) cancelledRepo.saveAll(cancelledLog);
+            if (!deferred.isEmpty()) {
+                unparsedRepo.saveAll(deferred);
+                log.info("⏳ Rezervasyonu henüz olmayan {} değişiklik/iptal beklemeye alındı", deferred.size());
+            }
 
-        r.put("adults",   extractNum(text,"(\\d+)\\s*x\\s*(Adult|Yetişkin)"));
-        r.put("children", extractNum(text,"(\\d+)\\s*x\\s*(Child|Çocuk)"));
+            if (inserted.size() < bookings.size())
+                log.warn("❗ {} çift rezervasyon atlandı", bookings.size() - inserted.size());
+            return inserted.size() + changed.rows() + cancelled.rows();
+        });
+
+        // commit'ten sonra: rollback olursa filtreye hayalet referans girmesin
+        fresh.forEach(r -> referenceFilter.add(r.getReference()));
+        if (!touched.isEmpty()) events.publishEvent(new ReservationDatesTouchedEvent(Set.copyOf(touched)));
+        // aynı referansa birden çok değişiklik tek satıra birleşti; pipeline sayımı mail başına
+        long waiting = deltas.stream().filter(d -> d.containsKey(IngestPipeline.DEFERRED)).count();
+        return written + (int) (batch.size() - bookings.size() - changes.size() - cancels.size() - waiting);
+    }
 
-        r.put("phone",    nvl(match(text,"Phone:\\s*([+\\d\\s]+)")));
-        String pickup = nvl(match(text,
-                "Pickup location:\\s*([^\\r\\n]+?)(?:\\s*Open in Google Maps|\\n)"));
-        r.put("pickup",   pickup);
-        r.put("customer", nvl(match(text,
-                "Main customer:\\s*([^\r\n]+?)\\s*(?:Phone:|Language:|$)")));
-        r.put("status",   "confirmed");
-        r.put("district", districtExtractor.extract(pickup));
+    /**
+     * Yeni eklenen rezervasyonlara bekleyen değişiklik / iptal mailleri:
+     * geliş sırasıyla, bu batch'in maillerinden önce uygulanır ve silinir.
+     * Gövdesi artık parse edilemeyen satır yeniden işleme için kalır.
+     */
+    private void applyPending(List<Reservation> inserted, Set<LocalDate> touched) {
+        List<UnparsedMail> pending = unparsedRepo.findByReferenceInOrderByIdAsc(
+                inserted.stream().map(Reservation::getReference).toList());
+        if (pending.isEmpty()) return;
+
+        Map<String,Reservation> changes = new LinkedHashMap<>();
+        List<String>            cancels = new ArrayList<>();
+        List<UnparsedMail>      applied = new ArrayList<>();
+        for (UnparsedMail row : pending) {
+            Map<String,Object> d = parseEmail(row.getSender(), row.getBody());
+            if (d == null || !row.getReference().equals(d.get("reference"))) continue;
+            if (BookingMailParser.KIND_CANCELLATION.equals(d.get("kind"))) cancels.add(row.getReference());
+            else if (BookingMailParser.KIND_CHANGE.equals(d.get("kind")))
+                changes.merge(row.getReference(), toChange(d), ReservationProcessor::mergeChange);
+            else continue;
+            applied.add(row);
+        }
 
-        return r;
+        touched.addAll(batchWriter.applyChanges(List.copyOf(changes.values())).dates());
+        touched.addAll(batchWriter.cancelByReference(cancels, "gyg-mail").dates());
+        unparsedRepo.deleteAllInBatch(applied);
+        log.info("⏳ {} bekleyen değişiklik/iptal rezervasyonuna uygulandı", applied.size());
     }
 
-    private void saveReservation(Map<String,Object> d) {
-        String ref = (String) d.get("reference");
-        if (reservationRepo.existsByReference(ref)) {
-            log.warn("❗ Çift rezervasyon atlandı: {}", ref);
-            return;
-        }
+    private Reservation toEntity(Map<String,Object> d) {
         Reservation r = new Reservation();
-        r.setReference(ref);
+        r.setReference((String) d.get("reference"));
         r.setStatus((String) d.get("status"));
         r.setTour((String) d.get("tour"));
         r.setOptionName("");
@@ -243,42 +504,41 @@ public class ReservationProcessor {
         r.setPhone((String) d.get("phone"));
         r.setPickup((String) d.get("pickup"));
         r.setDistrict((String) d.get("district"));
-        reservationRepo.save(r);
-    }
-
-    private void logUnparsed(String body) {
-        unparsedRepo.save(new UnparsedMail(null, body, Instant.now()));
+        return r;
     }
 
-    private String match(String txt, String... patterns) {
-        for (String p : patterns) {
-            Matcher m = Pattern.compile(p, Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE).matcher(txt);
-            if (m.find()) return m.group(1).trim();
-        }
-        return null;
+    /** Değişiklik: mailde olmayan alan null, sayılar -1 → DB'deki değer korunur */
+    private Reservation toChange(Map<String,Object> d) {
+        Reservation r = new Reservation();
+        r.setReference((String) d.get("reference"));
+        r.setDate((LocalDate) d.get("date"));
+        r.setTime((LocalTime) d.get("time"));
+        r.setAdults(d.get("adults")     == null ? -1 : (Integer) d.get("adults"));
+        r.setChildren(d.get("children") == null ? -1 : (Integer) d.get("children"));
+        r.setPhone((String) d.get("phone"));
+        r.setPickup((String) d.get("pickup"));
+        r.setDistrict((String) d.get("district"));
+        return r;
     }
 
-    private String[] matchGroups(String txt, String... patterns) {
-        for (String p : patterns) {
-            Matcher m = Pattern.compile(p, Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE).matcher(txt);
-            if (m.find()) return new String[]{m.group(1).trim(), m.group(2).trim()};
-        }
-        return null;
+    /** Aynı referansa ikinci değişiklik: yeni mailde olan alanlar öncekini ezer */
+    private static Reservation mergeChange(Reservation older, Reservation newer) {
+        if (newer.getDate()     == null) newer.setDate(older.getDate());
+        if (newer.getTime()     == null) newer.setTime(older.getTime());
+        if (newer.getAdults()   <  0)    newer.setAdults(older.getAdults());
+        if (newer.getChildren() <  0)    newer.setChildren(older.getChildren());
+        if (newer.getPhone()    == null) newer.setPhone(older.getPhone());
+        if (newer.getPickup()   == null) newer.setPickup(older.getPickup());
+        if (newer.getDistrict() == null) newer.setDistrict(older.getDistrict());
+        return newer;
     }
 
-    private int extractNum(String txt, String pattern) {
-        Matcher m = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(txt);
-        return m.find() ? Integer.parseInt(m.group(1)) : 0;
+    private void logUnparsed(String sender, String body) {
+        unparsedRepo.save(new UnparsedMail(null, head(body), Instant.now(), sender));
     }
 
-    private String nvl(String s) { return s == null ? "" : s.trim(); }
-
-    private int regionCode(String dist) {
-        if (List.of("Kemer","Beldibi","Çamyuva","Göynük").contains(dist))
-            return RouteController.Region.KEMER.ordinal();
-        if (List.of("Side","Sorgun","Evrenseki","Çolaklı","Kızılot","Kızılğaç","Manavgat")
-                .contains(dist))
-            return RouteController.Region.SIDE.ordinal();
-        return RouteController.Region.OTHER.ordinal();
+    /** kolon 4000 karakter; taşarsa insert patlar ve mail sonsuza dek yeniden denenir */
+    private static String head(String body) {
+        return body == null || body.length() <= 4000 ? body : body.substring(0, 4000);
     }
 }
@@ -0,0 +1,114 @@
+package com.osman.traviaskbot.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Çözülmüş VRP planlarını (after, tur) anahtarıyla saklar.
+ * <p>
+ * Bir plan {@code date >= after} olan tüm rezervasyonları kapsar; bu yüzden
+ * {@link ReservationDatesTouchedEvent} ile gelen bir gün {@code d}, sadece
+ * {@code after <= d} olan planları geçersiz kılar. Değişmeyen günlere ait
+ * planlar yeniden çözülmez.
+ * <p>
+ * {@code after} istekten gelir; önbellek LRU ile {@code route.plan-cache.max-size}
+ * planla sınırlıdır ve her plan en fazla {@code route.plan-cache.ttl} yaşar.
+ * Geocode'u düşen pickup ya da hub içeren (eksik) plan saklanmaz; bir sonraki
+ * istek tekrar dener.
+ */
+@Component
+@Slf4j
+public class RoutePlanCache {
+
+    /**
+     * @param routes   sürücü → pickup listesi
+     * @param starts   araç başlangıç koordinatları (mapsUrls için)
+     * @param complete false → bazı pickup / hub'lar çözülemedi, plan önbelleğe girmez
+     */
+    public record Plan(Map<String,List<String>> routes, List<double[]> starts, boolean complete) {
+        public static final Plan EMPTY = new Plan(Collections.emptyMap(), Collections.emptyList(), true);
+    }
+
+    private record Key(LocalDate after, String tour) { }
+
+    private record Entry(Plan plan, Instant expiresAt) { }
+
+    private final Map<Key,Entry> plans;
+    private final Duration       ttl;
+    private final Clock          clock;
+    /** her invalidation'da artar; çözüm sürerken gelen event'te bayat plan saklanmasın */
+    private final AtomicLong     generation = new AtomicLong();
+
+    @Autowired
+    public RoutePlanCache(@Value("${route.plan-cache.max-size:64}") int maxSize,
+                          @Value("${route.plan-cache.ttl:PT1H}") Duration ttl) {
+        this(maxSize, ttl, Clock.systemUTC());
+    }
+
+    RoutePlanCache(int maxSize, Duration ttl, Clock clock) {
+        this.ttl   = ttl;
+        this.clock = clock;
+        this.plans = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key,Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public Plan get(LocalDate after, String tour, Supplier<Plan> solver) {
+        Key key = new Key(after, tour);
+        synchronized (plans) {
+            Entry e = plans.get(key);
+            if (e != null && e.expiresAt().isAfter(clock.instant())) return e.plan();
+            if (e != null) plans.remove(key);
+        }
+
+        long gen = generation.get();
+        Plan plan = solver.get();
+        if (!plan.complete()) return plan;
+
+        Entry entry = new Entry(plan, clock.instant().plus(ttl));
+        synchronized (plans) {
+            // çözüm sürerken event geldiyse plan zaten bayat
+            if (generation.get() == gen) plans.put(key, entry);
+        }
+        return plan;
+    }
+
+    @EventListener
+    public void onDatesTouched(ReservationDatesTouchedEvent e) {
+        if (e.dates().isEmpty()) return;
+        LocalDate latest = Collections.max(e.dates());
+        // after <= d olan en az bir gün varsa plan etkilenmiştir; bu da after <= max(d) demek
+        int removed;
+        synchronized (plans) {
+            generation.incrementAndGet();
+            int before = plans.size();
+            plans.keySet().removeIf(k -> !k.after().isAfter(latest));
+            removed = before - plans.size();
+        }
+        if (removed > 0)
+            log.info("🗺️ {} rota planı geçersiz (etkilenen günler: {})", removed, e.dates());
+    }
+
+    int size() {
+        synchronized (plans) {
+            return plans.size();
+        }
+    }
+}
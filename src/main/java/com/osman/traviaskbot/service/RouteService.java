@@ -3,52 +3,57 @@ package com.osman.traviaskbot.service;
 
 import com.google.maps.DirectionsApi;
 import com.google.maps.GeoApiContext;
-import com.google.maps.GeocodingApi;
-import com.google.maps.errors.ZeroResultsException;
 import com.google.maps.model.DirectionsResult;
-import com.google.maps.model.GeocodingResult;
 import com.google.maps.model.TravelMode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import com.osman.traviaskbot.config.EnvConfig;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class RouteService {
 
-    private final GeoApiContext geoApiContext;
+    private final GeoApiContext    geoApiContext;
+    private final GeocodingService geocoding;
 
     /* ------------------------------------------------------------
        1) Pickup → [lat,lng]   (metin ise geocode ederek)
        ------------------------------------------------------------ */
     public double[] toLatLng(String addr) throws Exception {
         // 1-a) "lat,lng" formatıysa hemen dön
-        String[] p = addr.split(",");
-        if (p.length == 2) {
-            try {
-                return new double[] {
-                        Double.parseDouble(p[0].trim()),
-                        Double.parseDouble(p[1].trim())
-                };
-            } catch (NumberFormatException ignore) { /* metinmiş */ }
-        }
+        double[] literal = parseLatLng(addr);
+        if (literal != null) return literal;
 
-        // 1-b) Aksi hâlde Google Geocoding
-        GeocodingResult[] res = GeocodingApi
-                .geocode(geoApiContext, addr)
-                .await();
+        // 1-b) Aksi hâlde önbellek → bilinen otel → Google (aynı adres tek uçuşta)
+        return geocoding.lookup(addr);
+    }
 
-        if (res.length == 0)
-            throw new ZeroResultsException("Geocode bulunamadı: " + addr);
+    /* ------------------------------------------------------------
+       1') Birden çok pickup → koordinatlar (paralel, kota sınırlı)
+           Hatalar adres adres döner; bir adres tüm turu düşürmez.
+       ------------------------------------------------------------ */
+    public GeocodingService.Batch toLatLngAll(Collection<String> addrs) throws InterruptedException {
+        Map<String,double[]> literal = new LinkedHashMap<>();
+        List<String>         text    = new ArrayList<>();
+        for (String a : addrs) {
+            double[] ll = a == null ? null : parseLatLng(a);
+            if (ll != null) literal.put(a, ll);
+            else text.add(a);
+        }
+        GeocodingService.Batch batch = geocoding.lookupAll(text);
+        if (literal.isEmpty()) return batch;
 
-        return new double[] {
-                res[0].geometry.location.lat,
-                res[0].geometry.location.lng
-        };
+        Map<String,double[]> coords = new LinkedHashMap<>(batch.coords());
+        coords.putAll(literal);
+        return new GeocodingService.Batch(coords, batch.failures());
     }
 
     /* ------------------------------------------------------------
@@ -68,4 +73,18 @@ public class RouteService {
                 .optimizeWaypoints(true)
                 .await();           // ZeroResultsException burada fırlayabilir
     }
-}
\ No newline at end of file
+
+    /** "36.85, 30.80" → [lat, lng]; metinse null */
+    private static double[] parseLatLng(String addr) {
+        String[] p = addr.split(",");
+        if (p.length != 2) return null;
+        try {
+            return new double[] {
+                    Double.parseDouble(p[0].trim()),
+                    Double.parseDouble(p[1].trim())
+            };
+        } catch (NumberFormatException ignore) {
+            return null;                                // metinmiş
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.osman.traviaskbot.service;
+
+import com.osman.traviaskbot.entity.UnparsedMail;
+import com.osman.traviaskbot.repository.UnparsedMailRepository;
+import com.osman.traviaskbot.util.MailBodyExtractor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Parser iyileştiğinde unparsed_mails tablosunu baştan sona yeniden dener.
+ * <p>
+ * Satırlar id üzerinden keyset sayfalama ile okunur; her sayfa ortak ingest
+ * pipeline'ından (paralel parse + batch insert) geçer, rezervasyonu DB'ye
+ * ulaşan satırlar silinir. Bellekte aynı anda en fazla bir sayfa bulunur,
+ * böylece tablo yüz binlerce satır da olsa iş sabit bellekle yürür.
+ * <p>
+ * {@link IngestJobCoordinator} üzerinden {@link IngestJob.Kind#REPROCESS}
+ * işi olarak çalışır; tarama ve replay'lerle aynı anda çalışmaz, ilerlemesi
+ * {@code /jobs} altında izlenir.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UnparsedReprocessor {
+
+    private final UnparsedMailRepository unparsedRepo;
+    private final ReservationProcessor   processor;
+
+    @Value("${ingest.reprocess.page-size:500}")
+    private int pageSize;
+
+    /** Sadece {@link IngestJobCoordinator} çağırır */
+    IngestPipeline.Result run(IngestJob job) throws InterruptedException {
+        long cursor = 0;
+        int scanned = 0, recovered = 0, ok = 0, fail = 0, duplicate = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<UnparsedMail> page = unparsedRepo.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(pageSize));
+            if (page.isEmpty()) break;
+
+            // başarısızlar zaten tabloda; tekrar unparsed'a yazılmaz. logUnparsed=false ayrıca
+            // bekleyen değişiklik / iptallerin changed / cancelled kayıtlarını her çalışmada çoğaltmaz
+            IngestPipeline pipeline = processor.newPipeline(true, false, true, "reprocess");
+            IngestPipeline.Result res;
+            try {
+                // eski satırlar ham gövdeyle yazılmış olabilir; IMAP yoluyla aynı normalizasyon
+                for (UnparsedMail row : page) {
+                    pipeline.submitText(row.getId(), row.getSender(), MailBodyExtractor.normalizePlain(row.getBody()));
+                    job.submitted();
+                }
+            } finally {
+                res = pipeline.finish();
+            }
+
+            // eklenen ya da zaten var olan rezervasyon → satırın işi bitti
+            if (!res.persisted().isEmpty()) unparsedRepo.deleteAllByIdInBatch(res.persisted());
+
+            cursor     = page.get(page.size() - 1).getId();
+            scanned   += page.size();
+            recovered += res.persisted().size();
+            ok        += res.ok();
+            fail      += res.fail();
+            duplicate += res.duplicate();
+            job.matched(scanned);
+            log.info("♻️ unparsed yeniden işleme #{}: {} satır tarandı, {} kurtarıldı (id ≤ {})",
+                    job.getId(), scanned, recovered, cursor);
+        }
+        log.info("♻️ unparsed yeniden işleme #{} bitti: {} / {} satır kurtarıldı", job.getId(), recovered, scanned);
+        return new IngestPipeline.Result(ok, fail, duplicate, List.of(), List.of(), Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,37 @@
+package com.osman.traviaskbot.util;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bir rezervasyon kaynağının (OTA) mail şablonu çözücüsü.
+ * {@link MailParserRegistry} mailleri gönderen alan adına göre doğrudan
+ * ilgili çözücüye yönlendirir; yeni kaynak eklemek için bu arayüzü uygulayan
+ * bir {@code @Component} yeterlidir.
+ */
+public interface BookingMailParser {
+
+    /** {@code kind} alanının değerleri – yeni rezervasyon, değişiklik, iptal */
+    String KIND_BOOKING      = "booking";
+    String KIND_CHANGE       = "change";
+    String KIND_CANCELLATION = "cancellation";
+
+    /** Kısa ad – metrik etiketi ve loglar için ("getyourguide" …) */
+    String name();
+
+    /** Gönderen alan adları, küçük harf ("notification.getyourguide.com") */
+    Set<String> senderDomains();
+
+    /**
+     * Şablon parmak izi – ucuz bir kontrol. Sadece aynı alan adında birden
+     * çok şablon varsa ya da gönderen bilinmiyorsa çağrılır.
+     */
+    boolean matches(String text);
+
+    /**
+     * @param text {@link MailBodyExtractor} çıktısı
+     * @return {@link GygMailExtractor#extract} ile aynı anahtarlar ({@code kind} dahil);
+     *         çözülemezse {@code null}
+     */
+    Map<String,Object> parse(String text);
+}
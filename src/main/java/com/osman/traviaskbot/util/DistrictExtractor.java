@@ -2,24 +2,69 @@
 package com.osman.traviaskbot.util;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
+/**
+ * Pickup adresinden ilçe bulur.
+ * <p>
+ * {@code district-aliases.csv} içindeki tüm desenler (ve ilçe adları) açılıp
+ * normalize edilir (aksansız, küçük harf, ı→i) ve tek bir Aho-Corasick
+ * otomatına yüklenir. Adres bir kez normalize edilip tek geçişte taranır;
+ * sadece kelime sınırına oturan eşleşmeler sayılır ("Sidera" → Side değil).
+ * Birden çok ilçe geçerse CSV'de üstte olan satır kazanır.
+ * <p>
+ * Otomat açılışta bir kez kurulur; CSV dosyası değişirse
+ * {@code district.aliases.reload-interval} aralığıyla yeniden yüklenir.
+ * Hatalı yeni dosya eski otomatı bozmaz.
+ */
 @Component
 @Slf4j
 public class DistrictExtractor {
 
-    // Antalya'daki tüm ilçe isimleri:
-    private static final List<String> DISTRICTS = List.of(
-            "Tekirova","Çamyuva","Kemer","Göynük","Beldibi","Konyaaltı",
-            "Kaleiçi - Muratpaşa","Lara","Kundu","Aksu","Kadriye","Belek",
-            "Boğazkent","Serik","Gündoğdu","Çolaklı","Evrenseki","Kumköy",
-            "Side","Sorgun","Manavgat","Muratpasa","Kızılot","Kızılğaç","Okurcalar",
-            "İncekum","Avsallar","Türkler","Payallar","Konaklı","Alanya",
-            "Oba","Tosmur","Kestel","Mahmutlar"
-    );
+    public static final String UNKNOWN = "UNKNOWN";
+
+    private static final String DEFAULT_LOCATION = "classpath:district-aliases.csv";
+
+    private final Resource aliases;
+    private volatile Automaton automaton;
+    private volatile long      loadedStamp;
+    /** desen tutmazsa sorulan yedek (bilinen otel → ilçe); null dönebilir */
+    private volatile Function<String,String> fallback = raw -> null;
+
+    /** Gömülü CSV ile (testler, benchmark'lar) */
+    public DistrictExtractor() {
+        this(new DefaultResourceLoader().getResource(DEFAULT_LOCATION));
+    }
+
+    @Autowired
+    public DistrictExtractor(@Value("${district.aliases.location:" + DEFAULT_LOCATION + "}") Resource aliases) {
+        this.aliases     = aliases;
+        this.loadedStamp = lastModified(aliases);
+        this.automaton   = Automaton.load(aliases);
+        log.info("🗺️ İlçe eşleyici hazır: {} desen, {} durum ({})",
+                automaton.patterns, automaton.states(), aliases.getDescription());
+    }
 
     /**
      * @param rawAddress e‑postadan çektiğimiz "pickup" adresi
@@ -27,29 +72,333 @@ public class DistrictExtractor {
      */
     public String extract(String rawAddress) {
         if (rawAddress == null || rawAddress.isBlank()) {
-            return "UNKNOWN";
+            return UNKNOWN;
+        }
+        String district = match(rawAddress);
+        if (district == null) district = fallback.apply(rawAddress);
+        if (district == null) {
+            log.warn("❓ İlçe eşleşmedi → {}", rawAddress);
+            return UNKNOWN;
+        }
+        return district;
+    }
+
+    /** Sadece desenlerle eşleştirir; bulamazsa {@code null} (yedeğe sormaz, loglamaz) */
+    public String match(String rawAddress) {
+        if (rawAddress == null || rawAddress.isBlank()) return null;
+        return automaton.best(normalize(rawAddress));
+    }
+
+    /** Adreste ilçe adı geçmediğinde sorulacak yedek, ör. {@code PickupGazetteer} */
+    public void setFallback(Function<String,String> fallback) {
+        this.fallback = fallback == null ? raw -> null : fallback;
+    }
+
+    /** CSV değiştiyse otomatı yeniden kurar; jar içindeki kaynak için etkisizdir */
+    @Scheduled(fixedDelayString = "${district.aliases.reload-interval:PT1M}",
+               initialDelayString = "${district.aliases.reload-interval:PT1M}")
+    public void reloadIfChanged() {
+        long stamp = lastModified(aliases);
+        if (stamp <= 0 || stamp == loadedStamp) return;
+        loadedStamp = stamp;                            // bozuk dosya her turda yeniden denenmesin
+        try {
+            automaton = Automaton.load(aliases);
+            log.info("🗺️ İlçe desenleri yeniden yüklendi: {} desen", automaton.patterns);
+        } catch (RuntimeException ex) {
+            log.warn("⚠️ İlçe desenleri yüklenemedi, eski eşleyici kullanılıyor: {}", ex.getMessage());
+        }
+    }
+
+    /* ————————————————— helpers ————————————————— */
+
+    private static long lastModified(Resource r) {
+        try {
+            return r.isFile() ? r.lastModified() : 0L;
+        } catch (IOException ex) {
+            return 0L;
+        }
+    }
+
+    /** NFD + işaretleri at + küçük harf; Türkçe ı/İ düz i olur. ASCII girdi normalizer'a uğramaz. */
+    public static String normalize(String s) {
+        boolean ascii = true;
+        for (int i = 0; i < s.length() && ascii; i++) ascii = s.charAt(i) < 0x80;
+        String d = ascii ? s : Normalizer.normalize(s, Normalizer.Form.NFD);
+
+        StringBuilder sb = new StringBuilder(d.length());
+        for (int i = 0; i < d.length(); i++) {
+            char c = d.charAt(i);
+            switch (Character.getType(c)) {
+                case Character.NON_SPACING_MARK, Character.ENCLOSING_MARK,
+                     Character.COMBINING_SPACING_MARK, Character.FORMAT -> { continue; }
+                default -> { }
+            }
+            sb.append(c == 'ı' ? 'i' : Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+
+    private static boolean boundary(String s, int i) {
+        return i < 0 || i >= s.length() || !Character.isLetterOrDigit(s.charAt(i));
+    }
+
+    /**
+     * Deterministik Aho-Corasick: geçiş tablosu tam doldurulmuştur (failure
+     * zinciri kurulumda çözülür), tarama karakter başına tek dizi erişimi.
+     * Alfabe sadece desenlerde geçen ASCII karakterler; diğerleri köke döner.
+     */
+    private static final class Automaton {
+
+        private final byte[]   alphabet;     // char → sütun, -1 = alfabede yok
+        private final int[][]  delta;        // durum × sütun → durum
+        private final int[][]  outLen;       // durumda biten desen uzunlukları (suffix'ler dahil)
+        private final int[][]  outRow;       // … ve CSV satırları (öncelik)
+        private final String[] districts;    // satır → ilçe
+        private final int      patterns;
+
+        private Automaton(byte[] alphabet, int[][] delta, int[][] outLen, int[][] outRow,
+                          String[] districts, int patterns) {
+            this.alphabet  = alphabet;
+            this.delta     = delta;
+            this.outLen    = outLen;
+            this.outRow    = outRow;
+            this.districts = districts;
+            this.patterns  = patterns;
+        }
+
+        int states() {
+            return delta.length;
         }
 
-        // 1) Normalize & aksanları ayıkla
-        String norm = Normalizer
-                .normalize(rawAddress, Normalizer.Form.NFD)
-                .replaceAll("\\p{M}", "");        // tüm diakritikleri kaldır
+        /** @param text normalize edilmiş adres */
+        String best(String text) {
+            int state = 0, best = Integer.MAX_VALUE;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                int col = c < alphabet.length ? alphabet[c] : -1;
+                state = col < 0 ? 0 : delta[state][col];
 
-        String lower = norm.toLowerCase();
+                int[] lens = outLen[state];
+                if (lens.length == 0 || !boundary(text, i + 1)) continue;
+                int[] rows = outRow[state];
+                for (int k = 0; k < lens.length; k++) {
+                    if (rows[k] < best && boundary(text, i - lens[k])) best = rows[k];
+                }
+                if (best == 0) break;
+            }
+            return best == Integer.MAX_VALUE ? null : districts[best];
+        }
+
+        static Automaton load(Resource csv) {
+            List<String> districts = new ArrayList<>();
+            List<String> words     = new ArrayList<>();
+            List<Integer> rowOf    = new ArrayList<>();
+
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(csv.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                int no = 0;
+                while ((line = in.readLine()) != null) {
+                    no++;
+                    line = line.strip();
+                    if (line.isEmpty() || line.startsWith("#")) continue;
+                    int sep = line.lastIndexOf(';');
+                    if (sep <= 0 || sep == line.length() - 1) {
+                        log.warn("⚠️ district-aliases satır {} atlandı: '{}'", no, line);
+                        continue;
+                    }
+                    String district = line.substring(sep + 1).strip();
+                    Set<String> variants = new LinkedHashSet<>();
+                    try {
+                        for (String v : Expander.expand(line.substring(0, sep))) variants.add(normalize(v).strip());
+                    } catch (IllegalArgumentException ex) {
+                        log.warn("⚠️ district-aliases satır {} atlandı: {}", no, ex.getMessage());
+                        continue;
+                    }
+                    variants.add(normalize(district));
+                    int row = districts.size();
+                    districts.add(district);
+                    for (String v : variants) {
+                        if (v.isEmpty()) continue;
+                        words.add(v);
+                        rowOf.add(row);
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("district-aliases okunamadı: " + csv.getDescription(), ex);
+            }
+            if (words.isEmpty()) throw new IllegalStateException("district-aliases boş: " + csv.getDescription());
+            return build(words, rowOf, districts.toArray(String[]::new));
+        }
+
+        private static Automaton build(List<String> words, List<Integer> rowOf, String[] districts) {
+            // 1) alfabe
+            byte[] alphabet = new byte[128];
+            Arrays.fill(alphabet, (byte) -1);
+            int cols = 0;
+            for (String w : words) {
+                for (int i = 0; i < w.length(); i++) {
+                    char c = w.charAt(i);
+                    if (c >= 128) throw new IllegalStateException("ASCII olmayan desen karakteri: '" + w + "'");
+                    if (alphabet[c] < 0) alphabet[c] = (byte) cols++;
+                }
+            }
+
+            // 2) trie
+            List<int[]>           next = new ArrayList<>();
+            List<Map<Integer,Integer>> ends = new ArrayList<>();   // uzunluk → en iyi satır
+            next.add(filled(cols));
+            ends.add(new HashMap<>());
+            for (int w = 0; w < words.size(); w++) {
+                String word = words.get(w);
+                int s = 0;
+                for (int i = 0; i < word.length(); i++) {
+                    int col = alphabet[word.charAt(i)];
+                    if (next.get(s)[col] < 0) {
+                        next.get(s)[col] = next.size();
+                        next.add(filled(cols));
+                        ends.add(new HashMap<>());
+                    }
+                    s = next.get(s)[col];
+                }
+                ends.get(s).merge(word.length(), rowOf.get(w), Math::min);
+            }
+
+            // 3) BFS: failure linkleri, eksik geçişleri doldur, çıktıları suffix'lerden devral
+            int n = next.size();
+            int[]   fail  = new int[n];
+            int[][] delta = next.toArray(int[][]::new);
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int c = 0; c < cols; c++) {
+                if (delta[0][c] < 0) {
+                    delta[0][c] = 0;
+                } else {
+                    fail[delta[0][c]] = 0;
+                    queue.add(delta[0][c]);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int s = queue.poll();
+                ends.get(fail[s]).forEach((len, row) -> ends.get(s).merge(len, row, Math::min));
+                for (int c = 0; c < cols; c++) {
+                    int t = delta[s][c];
+                    if (t < 0) {
+                        delta[s][c] = delta[fail[s]][c];
+                    } else {
+                        fail[t] = delta[fail[s]][c];
+                        queue.add(t);
+                    }
+                }
+            }
+
+            int[][] outLen = new int[n][];
+            int[][] outRow = new int[n][];
+            for (int s = 0; s < n; s++) {
+                Map<Integer,Integer> e = ends.get(s);
+                outLen[s] = new int[e.size()];
+                outRow[s] = new int[e.size()];
+                int k = 0;
+                for (Map.Entry<Integer,Integer> en : e.entrySet()) {
+                    outLen[s][k] = en.getKey();
+                    outRow[s][k++] = en.getValue();
+                }
+            }
+            return new Automaton(alphabet, delta, outLen, outRow, districts, words.size());
+        }
+
+        private static int[] filled(int cols) {
+            int[] a = new int[cols];
+            Arrays.fill(a, -1);
+            return a;
+        }
+    }
+
+    /**
+     * CSV'deki desen alt kümesini tüm varyantlarına açar:
+     * {@code \btekir(?:ova)?\b|\bx[ıi]\b} → tekir, tekirova, xı, xi.
+     * Desteklenmeyen regex (., *, +, {}, aralıklar …) satırı reddeder.
+     */
+    static final class Expander {
 
-        // 2) Her ilçeyi normalize edip basit contains ile kontrol et
-        for (String district : DISTRICTS) {
-            String dNorm = Normalizer
-                    .normalize(district, Normalizer.Form.NFD)
-                    .replaceAll("\\p{M}", "")
-                    .toLowerCase();
+        private static final int MAX_VARIANTS = 64;
 
-            if (lower.contains(dNorm)) {
-                return district;
+        private final String src;
+        private int pos;
+
+        private Expander(String src) {
+            this.src = src;
+        }
+
+        static List<String> expand(String regex) {
+            Expander e = new Expander(regex.replace("\\b", ""));
+            List<String> out = e.alternation();
+            if (e.pos != e.src.length()) throw e.unsupported();
+            return out;
+        }
+
+        private List<String> alternation() {
+            List<String> out = new ArrayList<>(sequence());
+            while (pos < src.length() && src.charAt(pos) == '|') {
+                pos++;
+                out.addAll(sequence());
+            }
+            return out;
+        }
+
+        private List<String> sequence() {
+            List<String> acc = List.of("");
+            while (pos < src.length() && src.charAt(pos) != '|' && src.charAt(pos) != ')') {
+                List<String> atom = atom();
+                if (pos < src.length() && src.charAt(pos) == '?') {
+                    pos++;
+                    List<String> opt = new ArrayList<>(atom.size() + 1);
+                    opt.add("");
+                    opt.addAll(atom);
+                    atom = opt;
+                }
+                List<String> crossed = new ArrayList<>(acc.size() * atom.size());
+                for (String a : acc) for (String b : atom) crossed.add(a + b);
+                if (crossed.size() > MAX_VARIANTS) throw new IllegalArgumentException("çok fazla varyant: " + src);
+                acc = crossed;
             }
+            return acc;
         }
 
-        log.warn("❓ İlçe eşleşmedi → {}", rawAddress);
-        return "UNKNOWN";
+        private List<String> atom() {
+            char c = src.charAt(pos++);
+            switch (c) {
+                case '(' -> {
+                    if (src.startsWith("?:", pos)) pos += 2;
+                    List<String> inner = alternation();
+                    if (pos >= src.length() || src.charAt(pos) != ')') throw unsupported();
+                    pos++;
+                    return inner;
+                }
+                case '[' -> {
+                    List<String> chars = new ArrayList<>();
+                    while (pos < src.length() && src.charAt(pos) != ']') {
+                        char k = src.charAt(pos++);
+                        if (k == '^' || k == '\\' || (k == '-' && !chars.isEmpty() && pos < src.length()
+                                && src.charAt(pos) != ']')) throw unsupported();
+                        chars.add(String.valueOf(k));
+                    }
+                    if (pos >= src.length() || chars.isEmpty()) throw unsupported();
+                    pos++;
+                    return chars;
+                }
+                case '\\' -> {
+                    if (pos >= src.length() || Character.isLetterOrDigit(src.charAt(pos))) throw unsupported();
+                    return List.of(String.valueOf(src.charAt(pos++)));
+                }
+                case '.', '*', '+', '{', '}', '^', '$', '?', ']' -> throw unsupported();
+                default -> {
+                    return List.of(String.valueOf(c));
+                }
+            }
+        }
+
+        private IllegalArgumentException unsupported() {
+            return new IllegalArgumentException("desteklenmeyen desen (konum " + pos + "): " + src);
+        }
     }
 }
@@ -0,0 +1,239 @@
+// src/main/java/com/osman/traviaskbot/util/GygMailExtractor.java
+package com.osman.traviaskbot.util;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * GetYourGuide rezervasyon mailinden alanları çıkarır.
+ * <p>
+ * Tüm regex ve formatter'lar bir kez derlenir. Metin tek geçişte taranır:
+ * {@link #LABELS} her etiketi ("Reference number:", "Date:", "Tarih:" …)
+ * bulur, değer ise etiketin hemen arkasında ilgili alan desenine
+ * {@code lookingAt()} ile okunur. Her alan ilk geçerli eşleşmesiyle dolar.
+ * <p>
+ * Aynı geçişte mail türü de belirlenir ({@code kind}): yeni rezervasyon,
+ * değişiklik ya da iptal. Tür ifadesi sadece giriş cümlesinde, yani ilk
+ * "Reference number:" etiketinden önce sayılır; detay ya da alt bilgi
+ * metnindeki bir "booking has been cancelled" rezervasyonu iptale çevirmez.
+ * Değişiklik/iptal için sadece referans zorunludur; mailde olmayan alanlar
+ * {@code null} kalır ki DB'deki değer korunsun.
+ */
+@Component
+@RequiredArgsConstructor
+public class GygMailExtractor implements BookingMailParser {
+
+    private static final int FLAGS = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+
+    /** Etiket tablosu – grup sırası {@link Field} sırasıyla aynı */
+    private static final Pattern LABELS = Pattern.compile(
+            "(Reference number:)"
+          + "|(Date:)"
+          + "|(Tarih:)"
+          + "|(offer has been booked:)"
+          + "|(Phone:)"
+          + "|(Pickup location:)"
+          + "|(Main customer:)"
+          + "|(\\d+)\\s*x\\s*(?:(Adult|Yetişkin)|(Child|Çocuk))"
+          + "|((?:booking|reservation) has been cancell?ed|rezervasyon\\p{L}*\\s+(?:\\p{L}+\\s+){0,2}iptal edildi)"
+          + "|((?:booking|reservation) has been (?:changed|modified|updated)"
+          +   "|rezervasyon\\p{L}*\\s+(?:\\p{L}+\\s+){0,2}değiştirildi)", FLAGS);
+
+    private enum Field { REFERENCE, DATE_EN, DATE_TR, TOUR, PHONE, PICKUP, CUSTOMER, PAX, CANCEL, CHANGE }
+
+    /* etiketin arkasındaki değer desenleri (lookingAt) */
+    private static final Pattern REF      = Pattern.compile("\\s*(GYG\\w+)", FLAGS);
+    private static final Pattern DATE_EN  = Pattern.compile(
+            "\\s*([A-Za-z]+ \\d{1,2}, \\d{4})\\s+(\\d{1,2}:\\d{2}\\s*[AP]M)", FLAGS);
+    private static final Pattern DATE_TR  = Pattern.compile(
+            "\\s*(\\d{1,2} [A-Za-zçğıöşüÇĞİÖŞÜ]+ \\d{4})\\s+(\\d{1,2}:\\d{2})", FLAGS);
+    private static final Pattern PHONE    = Pattern.compile("\\s*([+\\d\\s]+)", FLAGS);
+    private static final Pattern PICKUP   = Pattern.compile(
+            "\\s*([^\\r\\n]+?)(?:\\s*Open in Google Maps|\\n)", FLAGS);
+    private static final Pattern CUSTOMER = Pattern.compile(
+            "\\s*([^\\r\\n]+?)\\s*(?:Phone:|Language:|$)", FLAGS);
+
+    /** parmak izi: GYG referansı her şablonda var */
+    private static final Pattern FINGERPRINT = Pattern.compile("Reference number:\\s*GYG", FLAGS);
+
+    private static final Pattern SULUADA  = Pattern.compile("suluada", FLAGS);
+    private static final Pattern LEGENDS  = Pattern.compile("legends", FLAGS);
+    private static final Pattern SPACES   = Pattern.compile("\\s+");
+
+    private static final DateTimeFormatter EN_DATE = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive().appendPattern("MMMM d, yyyy").toFormatter(Locale.ENGLISH);
+    private static final DateTimeFormatter EN_TIME = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive().appendPattern("h:mma").toFormatter(Locale.ENGLISH);
+    private static final DateTimeFormatter TR_DATE = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive().appendPattern("d MMMM yyyy").toFormatter(new Locale("tr"));
+    private static final DateTimeFormatter TR_TIME = DateTimeFormatter.ofPattern("H:mm");
+
+    private final DistrictExtractor districtExtractor;
+
+    @Override
+    public String name() {
+        return "getyourguide";
+    }
+
+    @Override
+    public Set<String> senderDomains() {
+        return Set.of("notification.getyourguide.com");
+    }
+
+    @Override
+    public boolean matches(String text) {
+        return FINGERPRINT.matcher(text).find();
+    }
+
+    @Override
+    public Map<String,Object> parse(String text) {
+        return extract(text);
+    }
+
+    /**
+     * @param text normalize edilmiş (HTML'den arındırılmış) mail metni
+     * @return alan → değer haritası; referans yoksa ya da rezervasyonda tarih yoksa {@code null}
+     */
+    public Map<String,Object> extract(String text) {
+        String    kind = KIND_BOOKING;
+        String    ref = null, tourLine = null, phone = null, pickup = null, customer = null;
+        LocalDate date = null;
+        LocalTime time = null;
+        Integer   adults = null, children = null;
+        boolean   lead = true;                      // ilk referans etiketine kadar giriş cümlesi
+
+        Matcher label = LABELS.matcher(text);
+        Matcher value = REF.matcher(text);          // desen her alanda usePattern ile değişir
+        int len = text.length();
+
+        while (label.find()) {
+            int end = label.end();
+            switch (field(label)) {
+                case REFERENCE -> {
+                    lead = false;
+                    if (ref == null && read(value, REF, end, len)) ref = value.group(1).trim();
+                }
+                case DATE_EN -> {
+                    if (date == null && read(value, DATE_EN, end, len)) {
+                        try {
+                            date = LocalDate.parse(value.group(1).trim(), EN_DATE);
+                            time = LocalTime.parse(SPACES.matcher(value.group(2)).replaceAll(""), EN_TIME);
+                        } catch (DateTimeParseException ignore) {
+                            date = null;
+                        }
+                    }
+                }
+                case DATE_TR -> {
+                    if (date == null && read(value, DATE_TR, end, len)) {
+                        try {
+                            date = LocalDate.parse(value.group(1).trim(), TR_DATE);
+                            time = LocalTime.parse(value.group(2).trim(), TR_TIME);
+                        } catch (DateTimeParseException ignore) {
+                            date = null;
+                        }
+                    }
+                }
+                case TOUR -> {
+                    if (tourLine == null) tourLine = tourOf(text, end);
+                }
+                case PHONE -> {
+                    if (phone == null && read(value, PHONE, end, len)) phone = value.group(1).trim();
+                }
+                case PICKUP -> {
+                    if (pickup == null && read(value, PICKUP, end, len)) pickup = value.group(1).trim();
+                }
+                case CUSTOMER -> {
+                    if (customer == null && read(value, CUSTOMER, end, len)) customer = value.group(1).trim();
+                }
+                case PAX -> {
+                    if (label.group(9) != null) {
+                        if (adults == null) adults = Integer.parseInt(label.group(8));
+                    } else if (children == null) {
+                        children = Integer.parseInt(label.group(8));
+                    }
+                }
+                // iptal metni her zaman baskın; "changed" bir iptali geri çevirmez
+                case CANCEL -> {
+                    if (lead) kind = KIND_CANCELLATION;
+                }
+                case CHANGE -> {
+                    if (lead && kind.equals(KIND_BOOKING)) kind = KIND_CHANGE;
+                }
+            }
+        }
+
+        if (ref == null) return null;
+        if (!kind.equals(KIND_BOOKING)) return delta(kind, ref, date, time, adults, children, phone, pickup);
+        if (date == null) return null;
+
+        Map<String,Object> r = new HashMap<>(16);
+        r.put("kind",      KIND_BOOKING);
+        r.put("reference", ref);
+        r.put("date",      date);
+        r.put("time",      time);
+        r.put("tour",      tourLine == null ? "" : tourLine);
+        r.put("option",    "");
+        r.put("adults",    adults   == null ? 0 : adults);
+        r.put("children",  children == null ? 0 : children);
+        r.put("phone",     nvl(phone));
+        r.put("pickup",    nvl(pickup));
+        r.put("customer",  nvl(customer));
+        r.put("status",    "confirmed");
+        r.put("district",  districtExtractor.extract(nvl(pickup)));
+        return r;
+    }
+
+    /* ————————————————— helpers ————————————————— */
+
+    /** Değişiklik / iptal: sadece mailde geçen alanlar dolu, gerisi null */
+    private Map<String,Object> delta(String kind, String ref, LocalDate date, LocalTime time,
+                                     Integer adults, Integer children, String phone, String pickup) {
+        Map<String,Object> r = new HashMap<>(16);
+        r.put("kind",      kind);
+        r.put("reference", ref);
+        r.put("status",    kind.equals(KIND_CANCELLATION) ? "cancelled" : "confirmed");
+        r.put("date",      date);
+        r.put("time",      date == null ? null : time);
+        r.put("adults",    adults);
+        r.put("children",  children);
+        r.put("phone",     phone);
+        r.put("pickup",    pickup);
+        r.put("district",  pickup == null ? null : districtExtractor.extract(pickup));
+        return r;
+    }
+
+    private static Field field(Matcher label) {
+        for (int g = 1; g <= 7; g++)
+            if (label.start(g) >= 0) return Field.values()[g - 1];
+        if (label.start(11) >= 0) return Field.CANCEL;
+        if (label.start(12) >= 0) return Field.CHANGE;
+        return Field.PAX;
+    }
+
+    private static boolean read(Matcher m, Pattern p, int from, int to) {
+        return m.usePattern(p).region(from, to).lookingAt();
+    }
+
+    /** "offer has been booked:" satırı – sadece Suluada / Land of Legends tanınır */
+    private static String tourOf(String text, int from) {
+        int eol = from;
+        while (eol < text.length() && text.charAt(eol) != '\n' && text.charAt(eol) != '\r') eol++;
+        if (SULUADA.matcher(text).region(from, eol).find()) return "Suluada";
+        if (LEGENDS.matcher(text).region(from, eol).find()) return "Land of Legends";
+        return "";
+    }
+
+    private static String nvl(String s) { return s == null ? "" : s.trim(); }
+}
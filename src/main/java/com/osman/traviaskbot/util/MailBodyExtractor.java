@@ -0,0 +1,201 @@
+// src/main/java/com/osman/traviaskbot/util/MailBodyExtractor.java
+package com.osman.traviaskbot.util;
+
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.internet.ContentType;
+import jakarta.mail.internet.MimeUtility;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Jsoup;
+import org.jsoup.parser.Parser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mailden ilk okunabilir metin parçasını çıkarır ve kanonik forma getirir:
+ * tek satır, ardışık boşluklar tek boşluk ({@code Jsoup.parse(..).text()} çıktısıyla aynı biçim).
+ * <p>
+ * Normalizasyon mail başına tam bir kez yapılır; text/plain parçalar için
+ * DOM kurulmaz: boşluklar sıkıştırılır ve HTML entity'leri ({@code &amp;},
+ * {@code &#39;}, {@code &nbsp;} …) Jsoup'taki gibi çözülür.
+ * <p>
+ * Parçalar {@code getContent()} ile belleğe alınmaz, {@link Part#getInputStream()}
+ * üzerinden akıtılır ve {@code maxTextBytes} / {@code maxHtmlBytes} sınırında
+ * kesilir. Metin olmayan parçalar ve ekler hiç decode edilmez; ilk dolu metin
+ * parçasında durulur. Böylece mail başına bellek, mailin boyutundan bağımsızdır.
+ */
+@Component
+@Slf4j
+public class MailBodyExtractor {
+
+    private final int maxTextBytes;
+    private final int maxHtmlBytes;
+
+    public MailBodyExtractor(@Value("${mail.body.max-text-bytes:262144}") int maxTextBytes,
+                             @Value("${mail.body.max-html-bytes:1048576}") int maxHtmlBytes) {
+        this.maxTextBytes = maxTextBytes;
+        this.maxHtmlBytes = maxHtmlBytes;
+    }
+
+    /** @return kanonik metin; okunabilir parça yoksa {@code null} */
+    public String extract(Part p) throws Exception {
+        if (Part.ATTACHMENT.equalsIgnoreCase(p.getDisposition())) return null;
+
+        if (p.isMimeType("text/plain")) return nonBlank(readPlain(p));
+        if (p.isMimeType("text/html"))  return nonBlank(readHtml(p));
+        if (p.isMimeType("multipart/*")) {
+            // multipart gövdesi sadece sınırlarına göre bölünür; parçalar decode edilmez
+            Multipart mp = (Multipart) p.getContent();
+            for (int i = 0; i < mp.getCount(); i++) {
+                String s = extract(mp.getBodyPart(i));
+                if (s != null) return s;
+            }
+        }
+        return null;
+    }
+
+    public static String normalizeHtml(String html) {
+        return Jsoup.parse(html).text();
+    }
+
+    /** Jsoup.text() ile aynı boşluk ve entity kuralı, DOM'suz tek geçiş */
+    public static String normalizePlain(String text) {
+        Collapser c = new Collapser(text.length());
+        for (int i = 0; i < text.length(); i++) c.append(text.charAt(i));
+        return c.toString();
+    }
+
+    /* ————————————————— helpers ————————————————— */
+
+    private String readPlain(Part p) throws Exception {
+        try (Capped in = new Capped(p.getInputStream(), maxTextBytes);
+             Reader r = new InputStreamReader(in, charsetOf(p, StandardCharsets.UTF_8))) {
+            Collapser c = new Collapser(Math.min(maxTextBytes, 16 * 1024));
+            char[] buf = new char[8 * 1024];
+            for (int n; (n = r.read(buf)) > 0; )
+                for (int i = 0; i < n; i++) c.append(buf[i]);
+            if (in.truncated) log.debug("✂️ text/plain {} byte'ta kesildi", maxTextBytes);
+            return c.toString();
+        }
+    }
+
+    private String readHtml(Part p) throws Exception {
+        try (Capped in = new Capped(p.getInputStream(), maxHtmlBytes)) {
+            Charset cs = charsetOf(p, null);
+            // charset başlıkta yoksa Jsoup <meta> etiketinden bulur
+            String text = Jsoup.parse(in, cs == null ? null : cs.name(), "").text();
+            if (in.truncated) log.debug("✂️ text/html {} byte'ta kesildi", maxHtmlBytes);
+            return text;
+        }
+    }
+
+    private static Charset charsetOf(Part p, Charset fallback) {
+        try {
+            String cs = new ContentType(p.getContentType()).getParameter("charset");
+            return cs == null ? fallback : Charset.forName(MimeUtility.javaCharset(cs));
+        } catch (Exception ex) {
+            return fallback == null ? StandardCharsets.UTF_8 : fallback;
+        }
+    }
+
+    private static String nonBlank(String s) {
+        return s == null || s.isEmpty() ? null : s;
+    }
+
+    /**
+     * Whitespace + NBSP dizilerini tek boşluğa indirir, baş/son boşluk atılır.
+     * {@code &isim;} / {@code &#nn;} entity'leri önce çözülür (çözülen NBSP de
+     * boşluk sayılır); tanınmayan ya da yarım kalan entity olduğu gibi kalır.
+     */
+    private static final class Collapser {
+        private static final int MAX_ENTITY = 32;
+
+        private final StringBuilder sb;
+        private final StringBuilder entity = new StringBuilder(MAX_ENTITY);
+        private boolean pendingSpace;
+
+        Collapser(int capacity) { sb = new StringBuilder(capacity); }
+
+        void append(char c) {
+            if (entity.length() > 0) {
+                if (c == ';') {
+                    String decoded = Parser.unescapeEntities(entity.append(c).toString(), false);
+                    entity.setLength(0);
+                    for (int i = 0; i < decoded.length(); i++) collapse(decoded.charAt(i));
+                    return;
+                }
+                if (entity.length() < MAX_ENTITY && (Character.isLetterOrDigit(c) || c == '#')) {
+                    entity.append(c);
+                    return;
+                }
+                flushEntity();
+            }
+            if (c == '&') entity.append(c);
+            else collapse(c);
+        }
+
+        private void collapse(char c) {
+            if (Character.isWhitespace(c) || c == '\u00a0') {
+                pendingSpace = sb.length() > 0;
+            } else {
+                if (pendingSpace) sb.append(' ');
+                pendingSpace = false;
+                sb.append(c);
+            }
+        }
+
+        private void flushEntity() {
+            for (int i = 0; i < entity.length(); i++) collapse(entity.charAt(i));
+            entity.setLength(0);
+        }
+
+        @Override
+        public String toString() {
+            flushEntity();
+            return sb.toString();
+        }
+    }
+
+    /** Sınırda EOF döner; kalan byte'lar okunmaz (IMAP'te çekilmez) */
+    private static final class Capped extends FilterInputStream {
+        private long    left;
+        private boolean probed, truncated;
+
+        Capped(InputStream in, long max) {
+            super(in);
+            this.left = max;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (left <= 0) return eof();
+            int b = super.read();
+            if (b >= 0) left--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (left <= 0) return eof();
+            int n = super.read(b, off, (int) Math.min(len, left));
+            if (n > 0) left -= n;
+            return n;
+        }
+
+        private int eof() throws IOException {
+            if (!probed) {
+                probed    = true;
+                truncated = super.read() >= 0;   // gerçekten devamı var mı
+            }
+            return -1;
+        }
+    }
+}
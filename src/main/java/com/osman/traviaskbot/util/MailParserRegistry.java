@@ -0,0 +1,117 @@
+package com.osman.traviaskbot.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.search.FromStringTerm;
+import jakarta.mail.search.OrTerm;
+import jakarta.mail.search.SearchTerm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gönderen alan adı → çözücü tablosu.
+ * <p>
+ * Her mail tek bir hash araması ile kendi çözücüsüne gider; bütün desen
+ * setleri sırayla denenmez. Alt alan adları üst alan adına düşer
+ * ({@code mail.x.com} → {@code x.com}). Aynı alan adında birden çok şablon
+ * varsa ya da gönderen bilinmiyorsa (eski unparsed satırları) parmak izi ile
+ * seçilir.
+ * <p>
+ * Her çözücü için {@code ingest.parser} timer'ı tutulur
+ * (parser = ad, outcome = parsed | unparsed).
+ */
+@Component
+@Slf4j
+public class MailParserRegistry {
+
+    private final List<BookingMailParser>              parsers;
+    private final Map<String,List<BookingMailParser>>  byDomain = new HashMap<>();
+    private final Map<BookingMailParser,Timer[]>       timers   = new HashMap<>();
+    private final SearchTerm                           senderTerm;
+
+    public MailParserRegistry(List<BookingMailParser> parsers, MeterRegistry registry) {
+        this.parsers = List.copyOf(parsers);
+        TreeSet<String> domains = new TreeSet<>();
+        for (BookingMailParser p : this.parsers) {
+            for (String d : p.senderDomains()) {
+                String key = d.toLowerCase(Locale.ROOT);
+                byDomain.computeIfAbsent(key, k -> new ArrayList<>()).add(p);
+                domains.add(key);
+            }
+            timers.put(p, new Timer[] {
+                    timer(registry, p, "parsed"),
+                    timer(registry, p, "unparsed") });
+        }
+        // IMAP SEARCH: FROM "@a" OR FROM "@b" … – filtre sunucuda
+        SearchTerm[] terms = domains.stream().map(d -> new FromStringTerm("@" + d)).toArray(SearchTerm[]::new);
+        this.senderTerm = terms.length == 1 ? terms[0] : new OrTerm(terms);
+        log.info("📬 Mail çözücüleri: {} → {}", this.parsers.stream().map(BookingMailParser::name).toList(), domains);
+    }
+
+    /** Kayıtlı tüm gönderenler için IMAP arama terimi */
+    public SearchTerm senderTerm() {
+        return senderTerm;
+    }
+
+    /**
+     * @param sender gönderen adresi ya da alan adı; bilinmiyorsa {@code null}
+     * @return çözülmüş alanlar; çözücü yoksa ya da şablon tanınmazsa {@code null}
+     */
+    public Map<String,Object> parse(String sender, String text) {
+        BookingMailParser p = resolve(sender, text);
+        if (p == null) return null;
+
+        long t0 = System.nanoTime();
+        Map<String,Object> data = null;
+        try {
+            data = p.parse(text);
+            return data;
+        } finally {
+            timers.get(p)[data != null ? 0 : 1].record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /* ————————————————— helpers ————————————————— */
+
+    private BookingMailParser resolve(String sender, String text) {
+        List<BookingMailParser> candidates = sender == null ? null : candidatesFor(domainOf(sender));
+        if (candidates == null) candidates = parsers;           // gönderen bilinmiyor
+        if (candidates.size() == 1) return candidates.get(0);   // olağan yol: parmak izi gerekmez
+        for (BookingMailParser p : candidates)
+            if (p.matches(text)) return p;
+        return null;
+    }
+
+    private List<BookingMailParser> candidatesFor(String domain) {
+        for (String d = domain; d != null; ) {
+            List<BookingMailParser> hit = byDomain.get(d);
+            if (hit != null) return hit;
+            int dot = d.indexOf('.');
+            d = dot < 0 || d.indexOf('.', dot + 1) < 0 ? null : d.substring(dot + 1);
+        }
+        return null;
+    }
+
+    /** "GetYourGuide <x@Notification.GetYourGuide.com>" → "notification.getyourguide.com" */
+    static String domainOf(String sender) {
+        String s = sender.trim();
+        int lt = s.lastIndexOf('<');
+        if (lt >= 0) s = s.substring(lt + 1, s.indexOf('>', lt) < 0 ? s.length() : s.indexOf('>', lt));
+        int at = s.lastIndexOf('@');
+        return s.substring(at + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static Timer timer(MeterRegistry registry, BookingMailParser p, String outcome) {
+        return Timer.builder("ingest.parser")
+                .tag("parser", p.name()).tag("outcome", outcome)
+                .register(registry);
+    }
+}
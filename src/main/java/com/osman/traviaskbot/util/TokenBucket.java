@@ -0,0 +1,40 @@
+package com.osman.traviaskbot.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Basit token bucket hız sınırlayıcı (ör. Google QPS kotası).
+ * <p>
+ * {@link #acquire()} bir token ayırır; kova boşsa token "borç" olarak
+ * alınır ve çağıran borcu ödenene kadar uyur. Böylece sırayla gelen
+ * çağıranlar saniyede en fazla {@code perSecond} istek yapar, boşta
+ * biriken {@code burst} kadar token ise hemen harcanabilir.
+ */
+public final class TokenBucket {
+
+    private final double perNano;
+    private final double capacity;
+    private double tokens;
+    private long   last;
+
+    public TokenBucket(double perSecond, int burst) {
+        if (perSecond <= 0) throw new IllegalArgumentException("perSecond > 0 olmalı: " + perSecond);
+        this.perNano  = perSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, burst);
+        this.tokens   = capacity;
+        this.last     = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - last) * perNano);
+            last   = now;
+            tokens -= 1;
+            if (tokens >= 0) return;
+            waitNanos = (long) Math.ceil(-tokens / perNano);
+        }
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+}
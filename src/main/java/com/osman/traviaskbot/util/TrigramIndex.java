@@ -0,0 +1,81 @@
+package com.osman.traviaskbot.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kısa metinler için bellek içi trigram indeksi (ters indeks + Dice benzerliği).
+ * <p>
+ * Her anahtar başına/sonuna boşluk eklenip 3'lü karakter parçalarına bölünür;
+ * sorgu sadece ortak trigramı olan kayıtları sayar, tüm listeyi taramaz.
+ * Benzerlik {@code 2·ortak / (|sorgu| + |kayıt|)}. Anahtarlar çağıran tarafından
+ * normalize edilmiş olmalı. Thread-safe değildir; eşzamanlı erişimi çağıran kilitler.
+ */
+public final class TrigramIndex {
+
+    public record Hit(int id, double score) { }
+
+    private final Map<Long,Postings> postings = new HashMap<>();
+    private int[] sizes = new int[16];
+    private int   count;
+
+    /** @return yeni kaydın id'si (0'dan artan) */
+    public int add(String key) {
+        long[] grams = trigrams(key);
+        int id = count++;
+        if (id == sizes.length) sizes = Arrays.copyOf(sizes, id * 2);
+        sizes[id] = grams.length;
+        for (long g : grams) postings.computeIfAbsent(g, k -> new Postings()).add(id);
+        return id;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** @return benzerliği {@code minScore} ve üstü olan en iyi kayıt; yoksa {@code null} */
+    public Hit best(String key, double minScore) {
+        long[] grams = trigrams(key);
+        if (grams.length == 0 || count == 0) return null;
+
+        int[] common = new int[count];
+        for (long g : grams) {
+            Postings p = postings.get(g);
+            if (p == null) continue;
+            for (int i = 0; i < p.n; i++) common[p.ids[i]]++;
+        }
+        int bestId = -1;
+        double bestScore = minScore;
+        for (int id = 0; id < count; id++) {
+            if (common[id] == 0) continue;
+            double score = 2.0 * common[id] / (grams.length + sizes[id]);
+            if (score >= bestScore) {
+                bestScore = score;
+                bestId = id;
+            }
+        }
+        return bestId < 0 ? null : new Hit(bestId, bestScore);
+    }
+
+    /** tekrarsız trigramlar; karakterler 16 bit olarak tek long'a paketlenir */
+    static long[] trigrams(String key) {
+        if (key.isBlank()) return new long[0];
+        String s = " " + key + " ";
+        long[] out = new long[s.length() - 2];
+        for (int i = 0; i + 2 < s.length(); i++) {
+            out[i] = ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+        }
+        return Arrays.stream(out).distinct().toArray();
+    }
+
+    private static final class Postings {
+        int[] ids = new int[4];
+        int   n;
+
+        void add(int id) {
+            if (n == ids.length) ids = Arrays.copyOf(ids, n * 2);
+            ids[n++] = id;
+        }
+    }
+}
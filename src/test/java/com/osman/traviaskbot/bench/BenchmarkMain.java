@@ -0,0 +1,33 @@
+package com.osman.traviaskbot.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Bu paketteki tüm benchmark'ları GC profiler ile çalıştırır
+ * (ops/s + {@code gc.alloc.rate} / {@code gc.alloc.rate.norm}).
+ * Sonuçlar karşılaştırma için JSON olarak da yazılır.
+ * <pre>
+ *   ./mvnw -Pbench test                                  # hepsi
+ *   ./mvnw -Pbench test -Dbench.include=MailBodyBenchmark  # tek sınıf (regex)
+ * </pre>
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() { }
+
+    /** @param args [0] = include regex, [1] = JSON sonuç dosyası (ikisi de isteğe bağlı) */
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 && !args[0].isBlank() ? args[0] : BenchmarkMain.class.getPackageName() + "\\..*Benchmark";
+        String result  = args.length > 1 ? args[1] : "target/jmh-result.json";
+        new Runner(new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build()).run();
+    }
+}
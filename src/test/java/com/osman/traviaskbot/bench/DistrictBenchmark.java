@@ -0,0 +1,40 @@
+package com.osman.traviaskbot.bench;
+
+import com.osman.traviaskbot.util.DistrictExtractor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DistrictExtractor#extract} – anonimleştirilmiş pickup adresleri
+ * ({@code bench/pickups.txt}) üzerinde. Listede eşleşmeyen adresler de var;
+ * bunlar tüm ilçe listesini sonuna kadar taradığı için en pahalı durumdur.
+ * <p>
+ * Bir op = tüm korpusun bir turu; adres/sn için ops/s × satır sayısı.
+ * Çalıştırmak için: {@code ./mvnw -Pbench test -Dbench.include=DistrictBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DistrictBenchmark {
+
+    private String[]          pickups;
+    private DistrictExtractor districts;
+
+    @Setup
+    public void setup() {
+        pickups = new String(GygParseBenchmark.bytes("/bench/pickups.txt"), StandardCharsets.UTF_8)
+                .lines().map(String::trim).filter(l -> !l.isEmpty()).toArray(String[]::new);
+        districts = new DistrictExtractor();
+    }
+
+    @Benchmark
+    public void extractAll(Blackhole bh) {
+        for (String p : pickups) bh.consume(districts.extract(p));
+    }
+}
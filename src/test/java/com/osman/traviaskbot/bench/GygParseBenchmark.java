@@ -0,0 +1,92 @@
+package com.osman.traviaskbot.bench;
+
+import com.osman.traviaskbot.util.DistrictExtractor;
+import com.osman.traviaskbot.util.GygMailExtractor;
+import com.osman.traviaskbot.util.MailParserRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eski parseEmail() (her çağrıda Pattern.compile) ile derlenmiş
+ * {@link GygMailExtractor} karşılaştırması; {@code registryParseEmail}
+ * ingest'in gerçekten kullandığı yolu (gönderen → çözücü seçimi + parse) ölçer.
+ * <p>
+ * ops/s = mail/sn; {@code gc.alloc.rate.norm} = mail başına ayrılan byte.
+ * Çalıştırmak için: {@code ./mvnw -Pbench test -Dbench.include=GygParseBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GygParseBenchmark {
+
+    static final String SENDER = "GetYourGuide <no-reply@notification.getyourguide.com>";
+
+    @Param({"gyg-booking-en.txt", "gyg-booking-tr.txt", "gyg-change-en.txt", "gyg-cancel-en.txt"})
+    public String mail;
+
+    private String text;
+    private LegacyGygParser legacy;
+    private GygMailExtractor compiled;
+    private MailParserRegistry registry;
+
+    @Setup
+    public void setup() {
+        text = load(mail);
+        DistrictExtractor districts = new DistrictExtractor();
+        legacy   = new LegacyGygParser(districts);
+        compiled = new GygMailExtractor(districts);
+        registry = new MailParserRegistry(List.of(compiled), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public Map<String,Object> legacyParseEmail() {
+        return legacy.parse(text);
+    }
+
+    @Benchmark
+    public Map<String,Object> compiledExtractor() {
+        return compiled.extract(text);
+    }
+
+    @Benchmark
+    public Map<String,Object> registryParseEmail() {
+        return registry.parse(SENDER, text);
+    }
+
+    static String load(String name) {
+        return new String(bytes("/mails/" + name), StandardCharsets.UTF_8).trim();
+    }
+
+    static byte[] bytes(String resource) {
+        try (InputStream in = GygParseBenchmark.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalArgumentException("bench kaynağı yok: " + resource);
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(GygParseBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+}
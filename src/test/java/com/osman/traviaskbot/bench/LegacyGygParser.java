@@ -0,0 +1,108 @@
+package com.osman.traviaskbot.bench;
+
+import com.osman.traviaskbot.util.DistrictExtractor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Eski ReservationProcessor.parseEmail() gövdesinin (Jsoup hariç) birebir kopyası.
+ * Sadece benchmark'ta karşılaştırma tabanı olarak kullanılır.
+ */
+final class LegacyGygParser {
+
+    private final DistrictExtractor districtExtractor;
+
+    LegacyGygParser(DistrictExtractor districtExtractor) {
+        this.districtExtractor = districtExtractor;
+    }
+
+    Map<String,Object> parse(String text) {
+        Map<String,Object> r = new HashMap<>();
+
+        String ref = match(text,"Reference number:\\s*(GYG\\w+)");
+        if (ref == null) return null;
+        r.put("reference", ref);
+
+        String[] dt = matchGroups(text,
+                "Date:\\s*([A-Za-z]+ \\d{1,2}, \\d{4})\\s+(\\d{1,2}:\\d{2}\\s*[AP]M)",
+                "Tarih:\\s*(\\d{1,2} [A-Za-zçğıöşüÇĞİÖŞÜ]+ \\d{4})\\s+(\\d{1,2}:\\d{2})"
+        );
+        if (dt == null) return null;
+
+        LocalDate date;
+        try {
+            date = LocalDate.parse(dt[0],
+                    DateTimeFormatter.ofPattern("MMMM d, yyyy", Locale.ENGLISH));
+        } catch (DateTimeParseException e) {
+            date = LocalDate.parse(dt[0],
+                    DateTimeFormatter.ofPattern("d MMMM yyyy", new Locale("tr")));
+        }
+        DateTimeFormatter tf = DateTimeFormatter.ofPattern("h:mm a", Locale.ENGLISH);
+        LocalTime time;
+        try {
+            time = LocalTime.parse(dt[1].toUpperCase(Locale.ROOT), tf);
+        } catch (DateTimeParseException e) {
+            // eski kodda Türkçe saat burada patlıyordu; karşılaştırma için yutuyoruz
+            time = LocalTime.parse(dt[1], DateTimeFormatter.ofPattern("H:mm"));
+        }
+        r.put("date", date);
+        r.put("time", time);
+
+        String tourLine = nvl(match(text,"offer has been booked:\\s*([^\\r\\n]+)"));
+        String lower = tourLine.toLowerCase(Locale.ROOT);
+        String tour;
+        if (lower.contains("suluada")) {
+            tour = "Suluada";
+        } else if (lower.contains("legends")) {
+            tour = "Land of Legends";
+        } else {
+            tour = "";
+        }
+        r.put("tour", tour);
+        r.put("option", "");
+
+        r.put("adults",   extractNum(text,"(\\d+)\\s*x\\s*(Adult|Yetişkin)"));
+        r.put("children", extractNum(text,"(\\d+)\\s*x\\s*(Child|Çocuk)"));
+
+        r.put("phone",    nvl(match(text,"Phone:\\s*([+\\d\\s]+)")));
+        String pickup = nvl(match(text,
+                "Pickup location:\\s*([^\\r\\n]+?)(?:\\s*Open in Google Maps|\\n)"));
+        r.put("pickup",   pickup);
+        r.put("customer", nvl(match(text,
+                "Main customer:\\s*([^\r\n]+?)\\s*(?:Phone:|Language:|$)")));
+        r.put("status",   "confirmed");
+        r.put("district", districtExtractor.extract(pickup));
+        return r;
+    }
+
+    private String match(String txt, String... patterns) {
+        for (String p : patterns) {
+            Matcher m = Pattern.compile(p, Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE).matcher(txt);
+            if (m.find()) return m.group(1).trim();
+        }
+        return null;
+    }
+
+    private String[] matchGroups(String txt, String... patterns) {
+        for (String p : patterns) {
+            Matcher m = Pattern.compile(p, Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE).matcher(txt);
+            if (m.find()) return new String[]{m.group(1).trim(), m.group(2).trim()};
+        }
+        return null;
+    }
+
+    private int extractNum(String txt, String pattern) {
+        Matcher m = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(txt);
+        return m.find() ? Integer.parseInt(m.group(1)) : 0;
+    }
+
+    private String nvl(String s) { return s == null ? "" : s.trim(); }
+}
@@ -0,0 +1,55 @@
+package com.osman.traviaskbot.bench;
+
+import com.osman.traviaskbot.util.MailBodyExtractor;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * extractBody: ham MIME → normalize metin ({@link MailBodyExtractor}).
+ * <p>
+ * {@code parseMime} sadece MIME ayrıştırma maliyetini verir; {@code extractBody}
+ * ondan farkı gövde çıkarma + HTML/düz metin normalizasyonudur. Her çağrıda
+ * mesaj yeniden kurulur, çünkü {@link MimeMessage} çözülmüş içeriği önbelleğe alır.
+ * <ul>
+ *   <li>{@code gyg-booking-en.eml}: multipart/alternative, quoted-printable düz metin + HTML</li>
+ *   <li>{@code gyg-booking-tr-html.eml}: multipart/related, base64 HTML + gömülü logo</li>
+ * </ul>
+ * Çalıştırmak için: {@code ./mvnw -Pbench test -Dbench.include=MailBodyBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MailBodyBenchmark {
+
+    @Param({"gyg-booking-en.eml", "gyg-booking-tr-html.eml"})
+    public String mail;
+
+    private byte[]            raw;
+    private Session           session;
+    private MailBodyExtractor extractor;
+
+    @Setup
+    public void setup() {
+        raw       = GygParseBenchmark.bytes("/mails/" + mail);
+        session   = Session.getInstance(new Properties());
+        extractor = new MailBodyExtractor(262_144, 1_048_576);
+    }
+
+    @Benchmark
+    public MimeMessage parseMime() throws Exception {
+        return new MimeMessage(session, new ByteArrayInputStream(raw));
+    }
+
+    @Benchmark
+    public String extractBody() throws Exception {
+        return extractor.extract(new MimeMessage(session, new ByteArrayInputStream(raw)));
+    }
+}
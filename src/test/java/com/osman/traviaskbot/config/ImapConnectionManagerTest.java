@@ -0,0 +1,53 @@
+package com.osman.traviaskbot.config;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImapConnectionManagerTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.IMAP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("gyg@localhost", "secret"));
+
+    @Test
+    void healthyConnectionIsUp() throws Exception {
+        ImapConnectionManager imap = new ImapConnectionManager(localImap(greenMail.getImap().getPort()));
+        try {
+            assertEquals(Status.UNKNOWN, imap.health().getStatus());
+            imap.withFolder(f -> f.getMessageCount());
+            assertEquals(Status.UP, imap.health().getStatus());
+        } finally {
+            imap.close();
+        }
+    }
+
+    @Test
+    void singleFailureIsDegradedRepeatedFailuresAreDown() {
+        // greenMail'in portu + 1: dinleyen yok, bağlantı hemen reddedilir
+        ImapConnectionManager imap = new ImapConnectionManager(localImap(greenMail.getImap().getPort() + 1));
+
+        assertThrows(Exception.class, () -> imap.withFolder(f -> null));
+        assertEquals(ImapConnectionManager.DEGRADED, imap.health().getStatus());
+        assertNotNull(imap.health().getDetails().get("error"));
+
+        for (int i = 1; i < ImapConnectionManager.DOWN_AFTER; i++)
+            assertThrows(Exception.class, () -> imap.withFolder(f -> null));
+        assertEquals(Status.DOWN, imap.health().getStatus());
+    }
+
+    private static ImapProperties localImap(int port) {
+        ImapProperties p = new ImapProperties();
+        p.setHost("localhost");
+        p.setPort(port);
+        p.setProtocol("imap");
+        p.setUser("gyg@localhost");
+        p.setPassword("secret");
+        return p;
+    }
+}
@@ -0,0 +1,155 @@
+package com.osman.traviaskbot.repository;
+
+import com.osman.traviaskbot.entity.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** SQL PostgreSQL'e özgü (ON CONFLICT, unnest, RETURNING); H2 yerine gerçek sunucu */
+@Testcontainers(disabledWithoutDocker = true)
+class ReservationBatchWriterTest {
+
+    @Container
+    static final PostgreSQLContainer<?> PG = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final LocalDate JULY_1 = LocalDate.of(2025, 7, 1);
+    private static final LocalDate JULY_2 = LocalDate.of(2025, 7, 2);
+    private static final LocalDate JULY_9 = LocalDate.of(2025, 7, 9);
+
+    private JdbcTemplate           jdbc;
+    private ReservationBatchWriter writer;
+
+    @BeforeEach
+    void schema() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource(PG.getJdbcUrl(), PG.getUsername(), PG.getPassword()));
+        jdbc.execute("DROP TABLE IF EXISTS reservations");
+        // Hibernate'in ddl-auto ile ürettiği tabloyla aynı kolonlar
+        jdbc.execute("""
+                CREATE TABLE reservations (
+                    id           bigserial PRIMARY KEY,
+                    reference    varchar(255) CONSTRAINT uk_reservations_reference UNIQUE,
+                    status       varchar(255),
+                    tour         varchar(3000),
+                    option_name  varchar(3000),
+                    date         date,
+                    time         time,
+                    adults       int NOT NULL,
+                    children     int NOT NULL,
+                    customer     varchar(500),
+                    phone        varchar(255),
+                    pickup       varchar(2000),
+                    district     varchar(255),
+                    cancelled_at timestamptz,
+                    cancelled_by varchar(255))
+                """);
+        writer = new ReservationBatchWriter(jdbc);
+    }
+
+    @Test
+    void insertSkipsExistingAndRepeatedReferences() {
+        writer.insertIgnoringDuplicates(List.of(booking("GYG1", JULY_1)));
+
+        List<Reservation> inserted = writer.insertIgnoringDuplicates(List.of(
+                booking("GYG1", JULY_2), booking("GYG2", JULY_1), booking("GYG2", JULY_9), booking("GYG3", JULY_2)));
+
+        assertEquals(List.of("GYG2", "GYG3"), inserted.stream().map(Reservation::getReference).toList());
+        assertEquals(3, count());
+        // çift gelen kayıt mevcut satırı ezmez
+        assertEquals(JULY_1, jdbc.queryForObject("SELECT date FROM reservations WHERE reference = 'GYG2'", LocalDate.class));
+    }
+
+    @Test
+    void changesKeepFieldsMissingFromTheMailAndReportOldAndNewDates() {
+        writer.insertIgnoringDuplicates(List.of(booking("GYG1", JULY_1), booking("GYG2", JULY_2)));
+
+        Reservation moved = change("GYG1");
+        moved.setDate(JULY_9);
+        moved.setAdults(4);
+        Reservation phoneOnly = change("GYG2");
+        phoneOnly.setPhone("+90 555 000 00 00");
+
+        ReservationBatchWriter.Applied applied =
+                writer.applyChanges(List.of(moved, phoneOnly, change("GYG-UNKNOWN")));
+
+        assertEquals(2, applied.rows());
+        assertEquals(Set.of(JULY_1, JULY_2, JULY_9), applied.dates());
+
+        Map<String,Object> gyg1 = jdbc.queryForMap("SELECT * FROM reservations WHERE reference = 'GYG1'");
+        assertEquals(JULY_9, ((Date) gyg1.get("date")).toLocalDate());
+        assertEquals(4, gyg1.get("adults"));
+        assertEquals(1, gyg1.get("children"));
+        assertEquals("Hotel GYG1", gyg1.get("pickup"));
+
+        Map<String,Object> gyg2 = jdbc.queryForMap("SELECT * FROM reservations WHERE reference = 'GYG2'");
+        assertEquals("+90 555 000 00 00", gyg2.get("phone"));
+        assertEquals(JULY_2, ((Date) gyg2.get("date")).toLocalDate());
+        assertEquals(2, gyg2.get("adults"));
+    }
+
+    @Test
+    void cancelTouchesOnlyActiveRows() {
+        writer.insertIgnoringDuplicates(List.of(booking("GYG1", JULY_1), booking("GYG2", JULY_2)));
+        writer.cancelByReference(List.of("GYG1"), "test");
+
+        ReservationBatchWriter.Applied applied =
+                writer.cancelByReference(List.of("GYG1", "GYG2", "GYG-UNKNOWN"), "gyg-mail");
+
+        assertEquals(1, applied.rows());
+        assertEquals(Set.of(JULY_2), applied.dates());
+        assertEquals("test", jdbc.queryForObject(
+                "SELECT cancelled_by FROM reservations WHERE reference = 'GYG1'", String.class));
+        assertEquals(2, jdbc.queryForObject(
+                "SELECT count(*) FROM reservations WHERE status = 'cancelled'", Integer.class));
+    }
+
+    @Test
+    void existingReferencesReturnsOnlyStoredOnes() {
+        writer.insertIgnoringDuplicates(List.of(booking("GYG1", JULY_1), booking("GYG2", JULY_2)));
+
+        assertEquals(Set.of("GYG2"), writer.existingReferences(List.of("GYG2", "GYG3")));
+        assertEquals(Set.of(), writer.existingReferences(List.of()));
+    }
+
+    private int count() {
+        return jdbc.queryForObject("SELECT count(*) FROM reservations", Integer.class);
+    }
+
+    private static Reservation booking(String ref, LocalDate date) {
+        Reservation r = new Reservation();
+        r.setReference(ref);
+        r.setStatus("confirmed");
+        r.setTour("Suluada");
+        r.setOptionName("");
+        r.setDate(date);
+        r.setTime(LocalTime.of(8, 30));
+        r.setAdults(2);
+        r.setChildren(1);
+        r.setCustomer("Customer " + ref);
+        r.setPhone("+49 000");
+        r.setPickup("Hotel " + ref);
+        r.setDistrict("Muratpaşa");
+        return r;
+    }
+
+    /** ReservationProcessor.toChange gibi: mailde olmayan alan null / -1 */
+    private static Reservation change(String ref) {
+        Reservation r = new Reservation();
+        r.setReference(ref);
+        r.setAdults(-1);
+        r.setChildren(-1);
+        return r;
+    }
+}
@@ -0,0 +1,58 @@
+package com.osman.traviaskbot.scheduler;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.osman.traviaskbot.config.ImapProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MailIdleListenerTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP_IMAP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("gyg@localhost", "secret"));
+
+    private final Semaphore scans = new Semaphore(0);
+    private MailIdleListener listener;
+
+    @AfterEach
+    void tearDown() {
+        if (listener != null) listener.stop();
+    }
+
+    @Test
+    void newMailTriggersScanWithinSeconds() throws Exception {
+        listener = new MailIdleListener(localImap(), scans::release);
+        listener.start();
+
+        // bağlanınca yapılan ilk tarama
+        assertTrue(scans.tryAcquire(10, TimeUnit.SECONDS), "ilk bağlantı taraması yapılmadı");
+
+        GreenMailUtil.sendTextEmailTest("gyg@localhost",
+                "booking@notification.getyourguide.com", "Booking - GYG123", "Reference number: GYG123");
+
+        assertTrue(scans.tryAcquire(10, TimeUnit.SECONDS), "yeni mail taramayı tetiklemedi");
+    }
+
+    private static ImapProperties localImap() {
+        ImapProperties p = new ImapProperties();
+        p.setHost("localhost");
+        p.setPort(greenMail.getImap().getPort());
+        p.setProtocol("imap");
+        p.setUser("gyg@localhost");
+        p.setPassword("secret");
+        p.getIdle().setMinBackoff(Duration.ofMillis(100));
+        p.getIdle().setMaxBackoff(Duration.ofSeconds(1));
+        p.getIdle().setNoopInterval(Duration.ofMillis(200));
+        return p;
+    }
+}
@@ -0,0 +1,54 @@
+package com.osman.traviaskbot.service;
+
+import com.osman.traviaskbot.entity.GeocodeCache;
+import com.osman.traviaskbot.repository.GeocodeCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GeocodeCacheServiceTest {
+
+    private final GeocodeCacheRepository repo = mock(GeocodeCacheRepository.class);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final GeocodeCacheService cache = new GeocodeCacheService(repo, meters, 2);
+
+    @Test
+    void readsThroughL2IntoL1() {
+        when(repo.findByAddress("Kumköy, 07600 Manavgat/Antalya"))
+                .thenReturn(new GeocodeCache("Kumköy, 07600 Manavgat/Antalya", 36.77, 31.40));
+
+        assertArrayEquals(new double[] {36.77, 31.40}, cache.get("  Kumköy,  07600 Manavgat/Antalya").orElseThrow());
+        assertArrayEquals(new double[] {36.77, 31.40}, cache.get("Kumköy, 07600 Manavgat/Antalya").orElseThrow());
+
+        verify(repo, times(1)).findByAddress(any());
+        assertEquals(1, count("l1", "hit"));
+        assertEquals(1, count("l2", "hit"));
+    }
+
+    @Test
+    void missThenPutServesFromMemory() {
+        assertTrue(cache.get("Lara, Muratpaşa").isEmpty());
+        cache.put("Lara, Muratpaşa", 36.85, 30.80);
+
+        cache.get("Lara, Muratpaşa").orElseThrow()[0] = 0;          // kopya dönmeli
+        assertEquals(36.85, cache.get("Lara, Muratpaşa").orElseThrow()[0]);
+        verify(repo).save(any());
+        verify(repo, times(1)).findByAddress(any());
+        assertEquals(1, count("l2", "miss"));
+    }
+
+    @Test
+    void l1IsSizeBounded() {
+        cache.put("a, x", 1, 1);
+        cache.put("b, x", 2, 2);
+        cache.put("c, x", 3, 3);
+        assertEquals(2, cache.localSize());
+    }
+
+    private double count(String tier, String result) {
+        return meters.get("geocode.cache.requests").tag("tier", tier).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,183 @@
+package com.osman.traviaskbot.service;
+
+import com.google.maps.errors.ZeroResultsException;
+import com.google.maps.model.GeocodingResult;
+import com.google.maps.model.Geometry;
+import com.google.maps.model.LatLng;
+import com.osman.traviaskbot.entity.GeocodeFailure;
+import com.osman.traviaskbot.exception.AddressValidationException;
+import com.osman.traviaskbot.repository.GeocodeCacheRepository;
+import com.osman.traviaskbot.repository.GeocodeFailureRepository;
+import com.osman.traviaskbot.repository.PickupPointRepository;
+import com.osman.traviaskbot.util.DistrictExtractor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GeocodingServiceTest {
+
+    private static final int MAX_CONCURRENT = 3;
+
+    private final AtomicInteger   calls   = new AtomicInteger();
+    private final AtomicInteger   open    = new AtomicInteger();
+    private final AtomicInteger   maxOpen = new AtomicInteger();
+    private final CountDownLatch  release = new CountDownLatch(1);
+    private final ExecutorService google  = Executors.newCachedThreadPool();
+
+    private final GeocodeFailureRepository failures = mock(GeocodeFailureRepository.class);
+    private final NegativeGeocodeCache     negative;
+    private final GeocodingService     service;
+
+    GeocodingServiceTest() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        PickupPointRepository points = mock(PickupPointRepository.class);
+        when(points.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        GeocodeCacheService cache = new GeocodeCacheService(mock(GeocodeCacheRepository.class), meters, 100);
+        // eşik 1.0: sözlük sadece birebir aynı anahtarı çözsün, test Google yoluna düşsün
+        PickupGazetteer gazetteer = new PickupGazetteer(points, new DistrictExtractor(), mock(RegionLocator.class), meters, 1.0);
+
+        negative = new NegativeGeocodeCache(failures, meters, Duration.ofHours(1));
+
+        service = new GeocodingService(null, cache, gazetteer, negative, 1000, 1000, MAX_CONCURRENT, Duration.ofSeconds(5)) {
+            @Override
+            CompletableFuture<GeocodingResult[]> dispatch(String address) {
+                calls.incrementAndGet();
+                maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    open.decrementAndGet();
+                    if (address.startsWith("Nowhere")) throw new IllegalStateException("zero results");
+                    if (address.startsWith("Ghost")) return new GeocodingResult[0];
+                    return new GeocodingResult[] { result(36.85, 30.80) };
+                }, google);
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        google.shutdownNow();
+    }
+
+    @Test
+    void concurrentLookupsShareOneRequest() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<double[]>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) results.add(pool.submit(() -> service.geocode("Club Hotel Sera, Lara")));
+            Thread.sleep(200);                      // hepsi uçuştaki isteğe bağlansın
+            release.countDown();
+            for (Future<double[]> f : results) assertArrayEquals(new double[] {36.85, 30.80}, f.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void repeatedAddressIsServedFromCacheNotRejected() {
+        release.countDown();
+        double[] first  = service.geocode("Club Hotel Sera, Lara");
+        double[] second = service.geocode("Club Hotel Sera ,Lara");
+        assertArrayEquals(first, second);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void failuresAreNotMemoized() {
+        release.countDown();
+        assertThrows(IllegalStateException.class, () -> service.lookup("Nowhere, Antalya"));
+        assertThrows(IllegalStateException.class, () -> service.lookup("Nowhere, Antalya"));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void zeroResultsAreCachedAndFailFast() throws Exception {
+        release.countDown();
+        assertThrows(ZeroResultsException.class, () -> service.lookup("Ghost Hotel, Kemer"));
+        assertThrows(AddressValidationException.class, () -> service.lookup("Ghost Hotel, Kemer"));
+
+        GeocodingService.Batch b = service.lookupAll(List.of("Ghost Hotel,  Kemer"));
+        assertInstanceOf(AddressValidationException.class, b.failures().get("Ghost Hotel,  Kemer"));
+        assertEquals(1, calls.get());
+        assertEquals(NegativeGeocodeCache.ZERO_RESULTS, negative.find("Ghost Hotel, Kemer").orElseThrow().getReason());
+
+        // personel düzeltti → tekrar denenir
+        assertTrue(negative.purge("Ghost Hotel, Kemer"));
+        assertThrows(ZeroResultsException.class, () -> service.lookup("Ghost Hotel, Kemer"));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void invalidAddressIsRecordedOnceAndDoesNotBlockLookup() throws Exception {
+        release.countDown();
+        assertThrows(AddressValidationException.class, () -> service.geocode("lobby"));
+        assertThrows(AddressValidationException.class, () -> service.geocode("lobby"));
+        assertEquals(0, calls.get());
+
+        GeocodeFailure f = negative.find("lobby").orElseThrow();
+        assertEquals(NegativeGeocodeCache.INVALID_ADDRESS, f.getReason());
+        assertEquals(1, f.getAttempts());
+        verify(failures, times(1)).save(any());
+
+        // lookup doğrulamaz; validator reddi onu engellememeli
+        assertEquals(36.85, service.lookup("lobby")[0]);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void batchRunsInParallelWithinLimitAndReportsFailuresPerAddress() throws Exception {
+        List<String> addrs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) addrs.add("Hotel " + i + ", Side");
+        addrs.add("Nowhere, Antalya");
+        addrs.add("Hotel 3, Side");                 // tekrar: tek istek
+        addrs.add(" ");
+
+        CompletableFuture<GeocodingService.Batch> batch = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.lookupAll(addrs);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+        assertEquals(MAX_CONCURRENT, open.get(), "izin sayısı kadar istek açık olmalı");
+        release.countDown();
+
+        GeocodingService.Batch b = batch.get(5, TimeUnit.SECONDS);
+        assertEquals(10, b.coords().size());
+        assertEquals(2, b.failures().size());
+        assertInstanceOf(IllegalStateException.class, b.failures().get("Nowhere, Antalya"));
+        assertInstanceOf(AddressValidationException.class, b.failures().get(" "));
+        assertEquals(11, calls.get());
+        assertTrue(maxOpen.get() <= MAX_CONCURRENT, "en fazla açık istek: " + maxOpen.get());
+    }
+
+    private static GeocodingResult result(double lat, double lng) {
+        GeocodingResult r = new GeocodingResult();
+        r.geometry = new Geometry();
+        r.geometry.location = new LatLng(lat, lng);
+        r.formattedAddress = "Side, Manavgat/Antalya, Türkiye";
+        r.partialMatch = true;                      // sözlüğe girmesin
+        return r;
+    }
+}
@@ -0,0 +1,129 @@
+package com.osman.traviaskbot.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+class IngestJobCoordinatorTest {
+
+    private static final IngestPipeline.Result OK = new IngestPipeline.Result(1, 0, 0, List.of(), List.of(), Long.MAX_VALUE);
+
+    private final ReservationProcessor processor   = mock(ReservationProcessor.class);
+    private final UnparsedReprocessor  reprocessor = mock(UnparsedReprocessor.class);
+    private final IngestJobCoordinator coordinator = new IngestJobCoordinator(processor, reprocessor);
+
+    /** ilk iş bırakılana kadar runner thread'ini tutar */
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch blocked = new CountDownLatch(1);
+
+    private final AtomicInteger        active  = new AtomicInteger();
+    private final AtomicInteger        maxSeen = new AtomicInteger();
+    private final List<IngestJob.Kind> order   = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        coordinator.shutdown();
+    }
+
+    @Test
+    void triggersDuringScanCoalesceIntoOneWaitingScan() throws Exception {
+        when(processor.ingest(any())).thenAnswer(inv -> work(inv.getArgument(0)));
+
+        IngestJob first = coordinator.trigger("schedule");
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        IngestJob second = coordinator.trigger("idle");
+        IngestJob third  = coordinator.trigger("api");
+
+        assertEquals(IngestJob.State.RUNNING, first.getState());
+        assertSame(second, third);
+        assertEquals(IngestJob.State.QUEUED, second.getState());
+        assertEquals(Set.of("idle", "api"), second.toMap().get("triggers"));
+        assertEquals(1, second.toMap().get("coalesced"));
+
+        release.countDown();
+        awaitFinished(second);
+
+        assertEquals(IngestJob.State.DONE, first.getState());
+        assertEquals(IngestJob.State.DONE, second.getState());
+        verify(processor, times(2)).ingest(any());
+        assertEquals(List.of(second, first), coordinator.recent());
+    }
+
+    @Test
+    void jobsOfDifferentKindsRunOneAtATimeInOrder() throws Exception {
+        when(processor.ingest(any())).thenAnswer(inv -> work(inv.getArgument(0)));
+        when(processor.replayArchive(any(), anyBoolean())).thenAnswer(inv -> work(inv.getArgument(0)));
+        when(reprocessor.run(any())).thenAnswer(inv -> work(inv.getArgument(0)));
+
+        coordinator.trigger("schedule");
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        IngestJob replay    = coordinator.replay(true, "api");
+        IngestJob reprocess = coordinator.reprocess("api");
+        IngestJob dryRun    = coordinator.replay(false, "api");
+        IngestJob scan      = coordinator.trigger("idle");
+
+        // farklı türler birleşmez, aynı tür bekleyene katılır
+        assertEquals(4, Set.of(replay, reprocess, dryRun, scan).size());
+        assertSame(replay, coordinator.replay(true, "api"));
+
+        release.countDown();
+        awaitFinished(scan);
+
+        assertEquals(List.of(IngestJob.Kind.SCAN, IngestJob.Kind.REPLAY, IngestJob.Kind.REPROCESS,
+                IngestJob.Kind.DRY_RUN, IngestJob.Kind.SCAN), order);
+        assertEquals(1, maxSeen.get());
+    }
+
+    @Test
+    void failedJobDoesNotStallTheQueue() throws Exception {
+        when(processor.ingest(any())).thenAnswer(inv -> {
+            work(inv.getArgument(0));
+            throw new IllegalStateException("imap down");
+        });
+        when(reprocessor.run(any())).thenReturn(OK);
+
+        IngestJob scan = coordinator.trigger("schedule");
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        IngestJob reprocess = coordinator.reprocess("api");
+
+        release.countDown();
+        awaitFinished(reprocess);
+
+        assertEquals(IngestJob.State.FAILED, scan.getState());
+        assertEquals("imap down", scan.toMap().get("error"));
+        assertEquals(IngestJob.State.DONE, reprocess.getState());
+        assertSame(reprocess, coordinator.find(reprocess.getId()).orElseThrow());
+    }
+
+    private IngestPipeline.Result work(IngestJob job) throws InterruptedException {
+        maxSeen.accumulateAndGet(active.incrementAndGet(), Math::max);
+        try {
+            order.add(job.getKind());
+            blocked.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return OK;
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private static void awaitFinished(IngestJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (job.getState() == IngestJob.State.QUEUED || job.getState() == IngestJob.State.RUNNING) {
+            assertTrue(System.nanoTime() < deadline, "iş bitmedi: " + job.toMap());
+            Thread.sleep(10);
+        }
+    }
+}
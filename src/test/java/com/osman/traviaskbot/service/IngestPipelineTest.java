@@ -0,0 +1,215 @@
+package com.osman.traviaskbot.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.FolderClosedException;
+import jakarta.mail.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class IngestPipelineTest {
+
+    private final IngestMetrics.Recorder metrics = new IngestMetrics(new SimpleMeterRegistry()).source("test");
+
+    /** gövde = uid; parser onu "n" alanına koyar */
+    private static final BiFunction<String,String,Map<String,Object>> PARSER =
+            (sender, body) -> Map.of("n", Long.parseLong(body));
+
+    @Test
+    void parallelParseResultsAreWrittenInSubmissionOrder() throws Exception {
+        List<Long> written = Collections.synchronizedList(new ArrayList<>());
+        // çift sayılar yavaş: worker'lar sırayı karıştırsın
+        BiFunction<String,String,Map<String,Object>> slowEven = (sender, body) -> {
+            if (Long.parseLong(body) % 2 == 0) sleep(5);
+            return PARSER.apply(sender, body);
+        };
+        IngestPipeline p = pipeline(8, 3, 4, slowEven, batch -> {
+            batch.forEach(d -> written.add((Long) d.get("n")));
+            return batch.size();
+        });
+
+        for (long i = 1; i <= 60; i++) p.submitText(i, "s", Long.toString(i));
+        IngestPipeline.Result res = p.finish();
+
+        assertEquals(LongStream.rangeClosed(1, 60).boxed().toList(), written);
+        assertEquals(60, res.ok());
+        assertEquals(60, p.completed());
+    }
+
+    @Test
+    void blockedWriterBoundsWorkInFlight() throws Exception {
+        int capacity = 2, batchSize = 1;
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger parsed = new AtomicInteger();
+        AtomicInteger submitted = new AtomicInteger();
+
+        IngestPipeline p = pipeline(capacity, batchSize, 2,
+                (sender, body) -> { parsed.incrementAndGet(); return PARSER.apply(sender, body); },
+                batch -> { await(release); return batch.size(); });
+
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            try {
+                for (long i = 1; i <= 100; i++) {
+                    p.submitText(i, "s", Long.toString(i));
+                    submitted.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(300);
+
+        // yazılan batch + semafor kadar mail parse edilmiş olabilir, fazlası değil
+        assertTrue(parsed.get() <= batchSize + capacity, "parse edilen: " + parsed.get());
+        assertTrue(submitted.get() < 10, "üretici beklemeliydi: " + submitted.get());
+        assertFalse(producer.isDone());
+
+        release.countDown();
+        producer.get(5, TimeUnit.SECONDS);
+        assertEquals(100, p.finish().ok());
+    }
+
+    @Test
+    void finishStopsEveryParseWorker() throws Exception {
+        IngestPipeline p = pipeline(4, 10, 6, PARSER, List::size);
+        for (long i = 1; i <= 25; i++) p.submitText(i, "s", Long.toString(i));
+
+        IngestPipeline.Result res = p.finish();
+
+        assertEquals(25, res.ok());
+        assertEquals(25, res.committed().size());
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                        .noneMatch(t -> t.getName().startsWith("ingest-") && t.isAlive()),
+                "tüm pipeline thread'leri bitmeli");
+        assertEquals(res, p.finish(), "ikinci finish aynı sonucu dönmeli");
+    }
+
+    @Test
+    void failedBatchHoldsWatermarkAtItsLowestUid() throws Exception {
+        IngestPipeline p = pipeline(8, 1, 2, PARSER, batch -> {
+            if (batch.stream().anyMatch(d -> (Long) d.get("n") == 5)) throw new IllegalStateException("db down");
+            return batch.size();
+        });
+        for (long i = 1; i <= 8; i++) p.submitText(i, "s", Long.toString(i));
+
+        IngestPipeline.Result res = p.finish();
+
+        assertEquals(5, res.firstRetryUid());
+        assertEquals(1, res.fail(), "batch-size 1: sadece 5'in batch'i düşmeli");
+        assertEquals(7, res.ok());
+        assertFalse(res.committed().contains(5L));
+    }
+
+    @Test
+    void batchesNeverExceedBatchSize() throws Exception {
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        IngestPipeline p = pipeline(64, 3, 4, PARSER, batch -> {
+            await(release);                         // ilk batch yazılırken gerisi tamponda birikir
+            sizes.add(batch.size());
+            return batch.size();
+        });
+        for (long i = 1; i <= 40; i++) p.submitText(i, "s", Long.toString(i));
+        release.countDown();
+
+        IngestPipeline.Result res = p.finish();
+
+        assertEquals(40, res.ok());
+        assertEquals(40, sizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(sizes.stream().allMatch(n -> n <= 3), "batch boyları: " + sizes);
+    }
+
+    @Test
+    void extractFailureIsRetriedNotCommitted() throws Exception {
+        Message ok = mock(Message.class), broken = mock(Message.class);
+        IngestPipeline p = new IngestPipeline(8, 10, 2, true,
+                msg -> {
+                    if (msg == broken) throw new FolderClosedException(null, "connection lost");
+                    return "7";
+                },
+                PARSER, List::size, (sender, body) -> { }, metrics);
+
+        p.submit(7, "s", ok);
+        p.submit(9, "s", broken);
+        IngestPipeline.Result res = p.finish();
+
+        assertEquals(9, res.firstRetryUid());
+        assertEquals(1, res.fail());
+        assertEquals(List.of(7L), res.committed());
+    }
+
+    @Test
+    void unparsedMailIsCommittedUnlessLoggingItFails() throws Exception {
+        BiFunction<String,String,Map<String,Object>> parser =
+                (sender, body) -> body.startsWith("x") ? null : PARSER.apply(sender, body);
+        List<String> logged = Collections.synchronizedList(new ArrayList<>());
+        IngestPipeline p = new IngestPipeline(8, 10, 2, true, msg -> null, parser, List::size,
+                (sender, body) -> {
+                    if (body.equals("x-broken")) throw new IllegalStateException("db down");
+                    logged.add(body);
+                }, metrics);
+
+        p.submitText(1, "s", "1");
+        p.submitText(2, "s", "x-garbage");
+        p.submitText(3, "s", "x-broken");
+        IngestPipeline.Result res = p.finish();
+
+        assertEquals(List.of("x-garbage"), logged);
+        assertEquals(3, res.firstRetryUid());
+        assertTrue(res.committed().containsAll(List.of(1L, 2L)));
+        assertFalse(res.committed().contains(3L));
+        assertEquals(List.of(1L), res.persisted());
+    }
+
+    @Test
+    void deferredRecordIsCommittedButNotPersisted() throws Exception {
+        IngestPipeline p = pipeline(8, 10, 2, (sender, body) -> new HashMap<>(PARSER.apply(sender, body)), batch -> {
+            batch.stream().filter(d -> (Long) d.get("n") == 2).forEach(d -> d.put(IngestPipeline.DEFERRED, true));
+            return batch.size() - 1;
+        });
+        for (long i = 1; i <= 3; i++) p.submitText(i, "s", Long.toString(i));
+
+        IngestPipeline.Result res = p.finish();
+
+        assertEquals(List.of(1L, 2L, 3L), res.committed());
+        assertEquals(List.of(1L, 3L), res.persisted());
+        assertEquals(Long.MAX_VALUE, res.firstRetryUid());
+    }
+
+    private IngestPipeline pipeline(int capacity, int batchSize, int workers,
+                                    BiFunction<String,String,Map<String,Object>> parser,
+                                    ToIntFunction<List<Map<String,Object>>> writer) {
+        return new IngestPipeline(capacity, batchSize, workers, true, msg -> null, parser, writer,
+                (sender, body) -> { }, metrics);
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
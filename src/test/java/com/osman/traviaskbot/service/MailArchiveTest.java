@@ -0,0 +1,129 @@
+package com.osman.traviaskbot.service;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MailArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rescannedUidsAreNotArchivedTwice() throws Exception {
+        MailArchive archive = archive();
+        for (long uid : new long[] {1, 2, 3, 2, 3, 4}) archive.append(uid, mail(uid));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), uids(archive));
+    }
+
+    @Test
+    void lastUidSurvivesRestartAndTornTailIsCut() throws Exception {
+        MailArchive first = archive();
+        first.append(1, mail(1));
+        first.append(2, mail(2));
+        first.close();
+        // crash: son kaydın yarısı yazılmış
+        try (var out = Files.newOutputStream(dir.resolve("mail-000001.seg"), StandardOpenOption.APPEND)) {
+            out.write(new byte[] {0, 0, 1, 0, 7, 7});
+        }
+
+        MailArchive second = archive();
+        second.append(2, mail(2));
+        second.append(3, mail(3));
+
+        assertEquals(List.of(1L, 2L, 3L), uids(second));
+    }
+
+    @Test
+    void uidValidityChangeStartsOver() throws Exception {
+        MailArchive archive = archive();
+        archive.useUidValidity(100);
+        archive.append(10, mail(10));
+        archive.useUidValidity(200);
+        archive.append(1, mail(1));
+
+        assertEquals(List.of(10L, 1L), uids(archive));
+        assertEquals(List.of("mail-000001-v100.seg", "mail-000002-v200.seg"), files());
+    }
+
+    @Test
+    void restartAfterUidValidityChangeIgnoresOldEpoch() throws Exception {
+        MailArchive first = archive();
+        first.useUidValidity(100);
+        first.append(10, mail(10));
+        first.close();
+
+        // yeniden başlatma: son segment eski dönemin, lastUid=10 yeni döneme taşınmamalı
+        MailArchive second = archive();
+        second.useUidValidity(200);
+        second.append(1, mail(1));
+        second.append(2, mail(2));
+        second.close();
+
+        MailArchive third = archive();
+        third.useUidValidity(200);
+        third.append(2, mail(2));
+        third.append(3, mail(3));
+
+        assertEquals(List.of(10L, 1L, 2L, 3L), uids(third));
+    }
+
+    @Test
+    void sameUidValidityKeepsWritingCurrentSegment() throws Exception {
+        MailArchive first = archive();
+        first.useUidValidity(100);
+        first.append(1, mail(1));
+        first.close();
+
+        MailArchive second = archive();
+        second.useUidValidity(100);
+        second.append(1, mail(1));
+        second.append(2, mail(2));
+
+        assertEquals(List.of(1L, 2L), uids(second));
+        assertEquals(List.of("mail-000001-v100.seg"), files());
+    }
+
+    private MailArchive archive() {
+        MailArchive a = new MailArchive();
+        ReflectionTestUtils.setField(a, "enabled", true);
+        ReflectionTestUtils.setField(a, "dirName", dir.toString());
+        ReflectionTestUtils.setField(a, "segmentBytes", 1L << 20);
+        a.init();
+        return a;
+    }
+
+    private List<String> files() throws Exception {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.map(p -> p.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static List<Long> uids(MailArchive archive) throws Exception {
+        List<Long> uids = new ArrayList<>();
+        archive.replay((uid, received, raw) -> uids.add(uid));
+        return uids;
+    }
+
+    private static MimeMessage mail(long uid) throws Exception {
+        MimeMessage m = new MimeMessage(Session.getInstance(new Properties()));
+        m.setFrom("booking@notification.getyourguide.com");
+        m.setSubject("Booking - GYG" + uid);
+        m.setText("Reference number: GYG" + uid, "UTF-8");
+        m.saveChanges();
+        return m;
+    }
+}
@@ -0,0 +1,75 @@
+package com.osman.traviaskbot.service;
+
+import com.osman.traviaskbot.entity.GeocodeFailure;
+import com.osman.traviaskbot.repository.GeocodeFailureRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class NegativeGeocodeCacheTest {
+
+    /** testte ileri sarılabilen saat */
+    private static class TestClock extends Clock {
+        Instant now = Instant.parse("2025-06-01T08:00:00Z");
+
+        @Override public ZoneId getZone()              { return ZoneOffset.UTC; }
+        @Override public Clock  withZone(ZoneId zone)  { return this; }
+        @Override public Instant instant()             { return now; }
+    }
+
+    private final TestClock                clock = new TestClock();
+    private final GeocodeFailureRepository repo  = mock(GeocodeFailureRepository.class);
+    private final NegativeGeocodeCache     cache =
+            new NegativeGeocodeCache(repo, new SimpleMeterRegistry(), Duration.ofHours(6), clock);
+
+    @Test
+    void recordedAddressIsFoundUntilTtlExpires() {
+        cache.record("Ghost Hotel,  Kemer ", NegativeGeocodeCache.ZERO_RESULTS);
+
+        assertTrue(cache.find("Ghost Hotel, Kemer").isPresent());
+        clock.now = clock.now.plus(Duration.ofHours(6));
+        assertTrue(cache.find("Ghost Hotel, Kemer").isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void repeatedFailureCountsAttemptsAndRenewsTtl() {
+        cache.record("Ghost Hotel, Kemer", NegativeGeocodeCache.ZERO_RESULTS);
+        clock.now = clock.now.plus(Duration.ofHours(5));
+        cache.record("Ghost Hotel, Kemer", NegativeGeocodeCache.ZERO_RESULTS);
+        clock.now = clock.now.plus(Duration.ofHours(5));
+
+        GeocodeFailure f = cache.find("Ghost Hotel, Kemer").orElseThrow();
+        assertEquals(2, f.getAttempts());
+        assertEquals(Instant.parse("2025-06-01T08:00:00Z"), f.getFirstFailedAt());
+        verify(repo, times(2)).save(any());
+    }
+
+    @Test
+    void purgeAndSweep() {
+        cache.record("Ghost Hotel, Kemer", NegativeGeocodeCache.ZERO_RESULTS);
+        clock.now = clock.now.plusSeconds(60);
+        cache.record("lobby", NegativeGeocodeCache.INVALID_ADDRESS);
+        assertEquals(List.of("lobby", "Ghost Hotel, Kemer"),
+                cache.list().stream().map(GeocodeFailure::getAddress).toList());
+
+        assertTrue(cache.purge("lobby"));
+        assertFalse(cache.purge("lobby"));
+        assertEquals(1, cache.size());
+
+        clock.now = clock.now.plus(Duration.ofDays(1));
+        cache.sweep();
+        assertEquals(0, cache.size());
+        verify(repo).deleteByExpiresAtBefore(clock.now);
+    }
+}
@@ -0,0 +1,91 @@
+package com.osman.traviaskbot.service;
+
+import com.osman.traviaskbot.entity.PickupPoint;
+import com.osman.traviaskbot.repository.PickupPointRepository;
+import com.osman.traviaskbot.util.DistrictExtractor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PickupGazetteerTest {
+
+    private final PickupPointRepository repo = mock(PickupPointRepository.class);
+    private final DistrictExtractor districts = new DistrictExtractor();
+    private final RegionLocator regions;
+    private PickupGazetteer gazetteer;
+
+    PickupGazetteerTest() throws Exception {
+        regions = new RegionLocator(RegionLocator.parse(new ClassPathResource("regions.geojson")));
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(repo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        gazetteer = new PickupGazetteer(repo, districts, regions, new SimpleMeterRegistry(), 0.65);
+        gazetteer.hookDistricts();
+    }
+
+    @Test
+    void resolvesSpellingVariantsToLearnedPoint() {
+        gazetteer.learn("Crystal Sunset Luxury Resort, Side, Manavgat/Antalya",
+                "Side, 07330 Manavgat/Antalya, Türkiye", 36.78, 31.39);
+
+        PickupPoint p = gazetteer.resolve("crystal sunset luxury resort & spa, SIDE").orElseThrow().point();
+        assertEquals(36.78, p.getLat());
+        assertEquals("Side", p.getDistrict());
+
+        assertTrue(gazetteer.resolve("Sunset Beach Hotel, Side").isEmpty());
+    }
+
+    @Test
+    void learnsOncePerKey() {
+        gazetteer.learn("Club Hotel Sera, Lara", "Lara, Muratpaşa/Antalya", 36.85, 30.80);
+        gazetteer.learn("club hotel sera - lara", "Lara, Muratpaşa/Antalya", 36.85, 30.80);
+        verify(repo, times(1)).save(any());
+        assertEquals(1, gazetteer.size());
+    }
+
+    @Test
+    void districtFallsBackToKnownHotel() {
+        gazetteer.learn("Kirman Sidera Luxury & Spa, Okurcalar, Alanya/Antalya",
+                "Okurcalar, Alanya/Antalya, Türkiye", 36.66, 31.71);
+
+        assertEquals("Okurcalar", districts.extract("KIRMAN SIDERA LUXURY & SPA HOTEL"));
+        assertEquals(DistrictExtractor.UNKNOWN, districts.extract("Some Unknown Place"));
+    }
+
+    @Test
+    void takesDistrictFromGoogleAddressWhenPickupHasNone() {
+        gazetteer.learn("Hane Garden Hotel", "Evrenseki, 07330 Manavgat/Antalya, Türkiye", 36.74, 31.45);
+        assertEquals("Evrenseki", gazetteer.resolve("Hane Garden").orElseThrow().point().getDistrict());
+    }
+
+    @Test
+    void takesDistrictFromPolygonWhenNoTextNamesOne() {
+        gazetteer.learn("Sunrise Garden Hotel", "Sunrise Garden Hotel, Türkiye", 36.600, 30.560);
+        assertEquals("Kemer", gazetteer.resolve("Sunrise Garden").orElseThrow().point().getDistrict());
+    }
+
+    @Test
+    void differentHouseNumberIsNotAFuzzyMatch() {
+        gazetteer.learn("Güzeloba Mah. Lara Cd. 14, Muratpaşa", "Lara Cd. No:14, Muratpaşa/Antalya", 36.86, 30.78);
+
+        assertTrue(gazetteer.resolve("Guzeloba Mah, Lara Cd. 12, Muratpasa").isEmpty());
+        assertTrue(gazetteer.resolve("Guzeloba Mahallesi Lara Caddesi 14 Muratpasa").isPresent());
+    }
+
+    @Test
+    void pointThatFailedToSaveIsNotIndexed() {
+        when(repo.save(any())).thenThrow(new IllegalStateException("db down"));
+
+        gazetteer.learn("Club Hotel Sera, Lara", "Lara, Muratpaşa/Antalya", 36.85, 30.80);
+
+        assertEquals(0, gazetteer.size());
+        assertTrue(gazetteer.resolve("Club Hotel Sera, Lara").isEmpty());
+    }
+}
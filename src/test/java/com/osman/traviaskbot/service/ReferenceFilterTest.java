@@ -0,0 +1,90 @@
+package com.osman.traviaskbot.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReferenceFilterTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+
+    @Test
+    void everythingIsMaybeUntilLoaded() {
+        ReferenceFilter filter = new ReferenceFilter(jdbc, 1000, 0.01);
+
+        assertTrue(filter.mightContain("GYG-NEVER-SEEN"));
+        filter.recordCheck(10, 10);
+        assertEquals(0L, info(filter).get("maybeChecks"), "yükleme öncesi kontroller sayılmamalı");
+    }
+
+    @Test
+    void storedAndAddedReferencesAreNeverReportedAbsent() {
+        ReferenceFilter filter = loaded(refs(0, 5_000), 5_000, 0.001);
+        filter.add("GYG-NEW");
+
+        assertTrue(refs(0, 5_000).stream().allMatch(filter::mightContain));
+        assertTrue(filter.mightContain("GYG-NEW"));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        ReferenceFilter filter = loaded(refs(0, 10_000), 10_000, 0.01);
+
+        long fp = refs(10_000, 30_000).stream().filter(filter::mightContain).count();
+
+        assertTrue(fp < 20_000 * 0.02, "yanlış pozitif: " + fp);
+        assertEquals(0.01, filter.estimatedFpp(), 0.005);
+    }
+
+    @Test
+    void failedLoadFallsBackToAskingTheDatabase() {
+        doThrow(new DataAccessResourceFailureException("db down"))
+                .when(jdbc).queryForStream(anyString(), any(RowMapper.class));
+        ReferenceFilter filter = new ReferenceFilter(jdbc, 1000, 0.01);
+        filter.load();
+
+        assertTrue(filter.mightContain("GYG-NEVER-SEEN"));
+        assertEquals(false, info(filter).get("loaded"));
+    }
+
+    @Test
+    void observedRateComesFromDatabaseChecks() {
+        ReferenceFilter filter = loaded(refs(0, 10), 1000, 0.01);
+        filter.recordCheck(8, 2);
+
+        Map<String,Object> d = info(filter);
+        assertEquals(8L, d.get("maybeChecks"));
+        assertEquals(2L, d.get("falsePositives"));
+        assertEquals(0.25, (double) d.get("observedFpp"), 1e-9);
+        assertEquals(10L, d.get("entries"));
+    }
+
+    private ReferenceFilter loaded(List<String> stored, long expected, double fpp) {
+        doReturn(stored.stream()).when(jdbc).queryForStream(anyString(), any(RowMapper.class));
+        ReferenceFilter filter = new ReferenceFilter(jdbc, expected, fpp);
+        filter.load();
+        return filter;
+    }
+
+    private static List<String> refs(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "GYG" + Integer.toString(i * 7919, 36).toUpperCase()).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String,Object> info(ReferenceFilter filter) {
+        Info.Builder b = new Info.Builder();
+        filter.contribute(b);
+        return (Map<String,Object>) b.build().getDetails().get("referenceFilter");
+    }
+}
@@ -0,0 +1,74 @@
+package com.osman.traviaskbot.service;
+
+import com.osman.traviaskbot.controller.RouteController.Region;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionLocatorTest {
+
+    private final RegionLocator locator;
+    private final List<RegionLocator.Polygon> polygons;
+
+    RegionLocatorTest() throws Exception {
+        polygons = RegionLocator.parse(new ClassPathResource("regions.geojson"));
+        locator  = new RegionLocator(polygons);
+    }
+
+    @Test
+    void assignsRegionFromCoordinates() {
+        assertEquals(new RegionLocator.Area("Kemer", Region.KEMER),    locator.locate(36.600, 30.560));  // Kemer merkez
+        assertEquals(Region.KEMER, locator.regionOf(new double[] {36.710, 30.570}));                     // Beldibi
+        assertEquals(new RegionLocator.Area("Manavgat", Region.SIDE),  locator.locate(36.767, 31.389));  // Side
+        assertEquals(Region.SIDE,  locator.regionOf(new double[] {36.700, 31.580}));                     // Kızılot
+        assertEquals(new RegionLocator.Area("Kaleiçi - Muratpaşa", Region.OTHER),
+                     locator.locate(36.850, 30.800));                                                  // Lara
+        assertEquals("Serik",  locator.locate(36.876074, 31.086317).district());                         // Land of Legends
+        assertEquals("Alanya", locator.locate(36.544, 31.999).district());
+    }
+
+    @Test
+    void polygonDistrictsUseAliasCsvLabels() throws IOException {
+        Set<String> labels;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new ClassPathResource("district-aliases.csv").getInputStream(), StandardCharsets.UTF_8))) {
+            labels = in.lines().map(String::strip)
+                    .filter(l -> !l.isEmpty() && !l.startsWith("#"))
+                    .map(l -> l.substring(l.lastIndexOf(';') + 1).strip())
+                    .collect(Collectors.toSet());
+        }
+
+        for (RegionLocator.Polygon p : polygons)
+            assertTrue(labels.contains(p.area().district()),
+                    "regions.geojson ilçesi district-aliases.csv'de yok: " + p.area().district());
+    }
+
+    @Test
+    void pointsOutsideAllPolygonsAreOther() {
+        assertEquals(RegionLocator.Area.NONE, locator.locate(35.0, 30.0));
+        assertEquals(RegionLocator.Area.NONE, locator.locate(39.9, 32.8));   // Ankara
+    }
+
+    @Test
+    void gridAgreesWithLinearScan() {
+        Random rnd = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            double lat = 36.2 + rnd.nextDouble() * 0.9;
+            double lng = 30.2 + rnd.nextDouble() * 2.3;
+            RegionLocator.Area expected = polygons.stream()
+                    .filter(p -> p.contains(lng, lat)).map(RegionLocator.Polygon::area)
+                    .findFirst().orElse(RegionLocator.Area.NONE);
+            assertEquals(expected, locator.locate(lat, lng), lat + "," + lng);
+        }
+    }
+}
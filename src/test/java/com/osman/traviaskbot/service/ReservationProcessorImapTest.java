@@ -0,0 +1,189 @@
+package com.osman.traviaskbot.service;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.osman.traviaskbot.config.ImapConnectionManager;
+import com.osman.traviaskbot.config.ImapProperties;
+import com.osman.traviaskbot.entity.MailWatermark;
+import com.osman.traviaskbot.entity.Reservation;
+import com.osman.traviaskbot.repository.CancelledMailRepository;
+import com.osman.traviaskbot.repository.ChangedMailRepository;
+import com.osman.traviaskbot.repository.MailWatermarkRepository;
+import com.osman.traviaskbot.repository.ReservationBatchWriter;
+import com.osman.traviaskbot.repository.ReservationRepository;
+import com.osman.traviaskbot.repository.UnparsedMailRepository;
+import com.osman.traviaskbot.util.DistrictExtractor;
+import com.osman.traviaskbot.util.GygMailExtractor;
+import com.osman.traviaskbot.util.MailBodyExtractor;
+import com.osman.traviaskbot.util.MailParserRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Flags;
+import jakarta.mail.Message;
+import jakarta.mail.search.SubjectTerm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+/** fetchInto: ilk taramada UNSEEN, sonra sadece watermark'tan büyük UID'ler */
+class ReservationProcessorImapTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP_IMAP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("gyg@localhost", "secret"));
+
+    private static final String GYG = "booking@notification.getyourguide.com";
+
+    private final Map<String,MailWatermark> watermarks = new HashMap<>();
+    private final List<String>              inserted   = new ArrayList<>();
+
+    private ImapConnectionManager imap;
+    private ReservationProcessor  processor;
+
+    @BeforeEach
+    void setUp() {
+        ImapProperties props = new ImapProperties();
+        props.setHost("localhost");
+        props.setPort(greenMail.getImap().getPort());
+        props.setProtocol("imap");
+        props.setUser("gyg@localhost");
+        props.setPassword("secret");
+        imap = new ImapConnectionManager(props);
+
+        MailWatermarkRepository watermarkRepo = mock(MailWatermarkRepository.class);
+        when(watermarkRepo.findById(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(watermarks.get(inv.<String>getArgument(0))));
+        when(watermarkRepo.save(any(MailWatermark.class))).thenAnswer(inv -> {
+            MailWatermark wm = inv.getArgument(0);
+            watermarks.put(wm.getFolder(), wm);
+            return wm;
+        });
+
+        ReservationBatchWriter batchWriter = mock(ReservationBatchWriter.class);
+        when(batchWriter.insertIgnoringDuplicates(anyList())).thenAnswer(inv -> {
+            List<Reservation> rows = inv.getArgument(0);
+            rows.forEach(r -> inserted.add(r.getReference()));
+            return rows;
+        });
+        when(batchWriter.applyChanges(anyList())).thenReturn(new ReservationBatchWriter.Applied(0, Set.of()));
+        when(batchWriter.cancelByReference(anyList(), anyString()))
+                .thenReturn(new ReservationBatchWriter.Applied(0, Set.of()));
+
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MailParserRegistry parsers = spy(new MailParserRegistry(
+                List.of(new GygMailExtractor(new DistrictExtractor())), registry));
+        // GreenMail SEARCH "FROM @alan" atomunu ayrıştıramıyor; gönderen filtresi yerine konu
+        doReturn(new SubjectTerm("Booking")).when(parsers).senderTerm();
+
+        processor = new ReservationProcessor(
+                mock(ReservationRepository.class), batchWriter, mock(UnparsedMailRepository.class), watermarkRepo,
+                parsers,
+                new MailBodyExtractor(262_144, 1_048_576),
+                null, null, null,
+                props, imap, new MailArchive(),             // arşiv kapalı
+                mock(CancelledMailRepository.class), mock(ChangedMailRepository.class), tx,
+                mock(ApplicationEventPublisher.class), new ReferenceFilter(null, 1_000, 0.01),
+                new IngestMetrics(registry));
+        ReflectionTestUtils.setField(processor, "queueCapacity", 16);
+        ReflectionTestUtils.setField(processor, "batchSize", 10);
+        ReflectionTestUtils.setField(processor, "parseWorkers", 2);
+        ReflectionTestUtils.setField(processor, "fetchBatchSize", 10);
+        ReflectionTestUtils.setField(processor, "maxMessageBytes", 2_097_152);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imap.close();
+    }
+
+    @Test
+    void bootstrapScansOnlyUnseenAndStartsWatermarkAtUidNext() throws Exception {
+        send(GYG, "GYGBOOT1");
+        send(GYG, "GYGBOOT2");
+        send(GYG, "GYGBOOT3");
+        // bot'tan önce okunmuş mail: bootstrap UNSEEN taraması almaz
+        imap.withFolder(f -> {
+            f.getMessage(1).setFlag(Flags.Flag.SEEN, true);
+            return null;
+        });
+
+        IngestPipeline.Result res = processor.ingest(new IngestJob(1, IngestJob.Kind.SCAN, "test"));
+
+        assertEquals(2, res.ok());
+        assertEquals(List.of("GYGBOOT2", "GYGBOOT3"), inserted);
+        MailWatermark wm = watermarks.get("INBOX");
+        assertEquals(3, wm.getLastUid());
+        long validity = imap.withFolder(f -> f.getUIDValidity());
+        assertEquals(validity, wm.getUidValidity());
+        assertEquals(List.of(true, true, true), seenFlags());
+    }
+
+    @Test
+    void watermarkScansOnlyNewUids() throws Exception {
+        send(GYG, "GYGWM1");
+        processor.ingest(new IngestJob(1, IngestJob.Kind.SCAN, "test"));
+
+        send(GYG, "GYGWM2");
+        send("someone@example.com", "Hello", "GYGOTHER");
+        // watermark varken UNSEEN bakılmaz: okunmamışa çevrilen eski mail tekrar işlenmez
+        imap.withFolder(f -> {
+            f.getMessage(1).setFlag(Flags.Flag.SEEN, false);
+            return null;
+        });
+        IngestPipeline.Result res = processor.ingest(new IngestJob(2, IngestJob.Kind.SCAN, "test"));
+
+        assertEquals(1, res.ok());
+        assertEquals(List.of("GYGWM1", "GYGWM2"), inserted);
+        assertEquals(3, watermarks.get("INBOX").getLastUid());     // gönderen filtresine takılan da geçildi
+        assertEquals(List.of(false, true, false), seenFlags());    // sadece işlenen SEEN olur
+
+        processor.ingest(new IngestJob(3, IngestJob.Kind.SCAN, "test"));
+        assertEquals(List.of("GYGWM1", "GYGWM2"), inserted);
+    }
+
+    private static void send(String from, String reference) {
+        send(from, "Booking - " + reference, reference);
+    }
+
+    private static void send(String from, String subject, String reference) {
+        GreenMailUtil.sendTextEmailTest("gyg@localhost", from, subject,
+                "Hi supply partner, great news! The following offer has been booked: Suluada Day Trip"
+              + " Reference number: " + reference + " Date: August 9, 2025 8:15 AM"
+              + " Number of participants: 2 x Adults (Age 13 - 99) Main customer: Jane Doe"
+              + " Phone: +44 7700 900123 Language: English"
+              + " Pickup location: Crystal Sunset Luxury Resort, Side, Manavgat/Antalya Open in Google Maps");
+    }
+
+    private List<Boolean> seenFlags() throws Exception {
+        return imap.withFolder(f -> {
+            List<Boolean> seen = new ArrayList<>();
+            for (Message m : f.getMessages()) seen.add(m.isSet(Flags.Flag.SEEN));
+            return seen;
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package com.osman.traviaskbot.service;
+
+import com.osman.traviaskbot.service.RoutePlanCache.Plan;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutePlanCacheTest {
+
+    /** testte ileri sarılabilen saat */
+    private static class TestClock extends Clock {
+        Instant now = Instant.parse("2025-06-01T08:00:00Z");
+
+        @Override public ZoneId getZone()              { return ZoneOffset.UTC; }
+        @Override public Clock  withZone(ZoneId zone)  { return this; }
+        @Override public Instant instant()             { return now; }
+    }
+
+    private static final LocalDate JULY_1  = LocalDate.of(2025, 7, 1);
+    private static final LocalDate JULY_10 = LocalDate.of(2025, 7, 10);
+    private static final String    TOUR    = "Suluada";
+
+    private final TestClock      clock  = new TestClock();
+    private final RoutePlanCache cache  = new RoutePlanCache(3, Duration.ofHours(1), clock);
+    private final AtomicInteger  solved = new AtomicInteger();
+
+    @Test
+    void touchedDayInvalidatesOnlyPlansStartingOnOrBeforeIt() {
+        cache.get(JULY_1, TOUR, solver());
+        cache.get(JULY_10, TOUR, solver());
+
+        cache.onDatesTouched(new ReservationDatesTouchedEvent(Set.of(JULY_1.plusDays(3))));
+
+        cache.get(JULY_1, TOUR, solver());
+        cache.get(JULY_10, TOUR, solver());
+        assertEquals(3, solved.get(), "sadece 1 Temmuz planı yeniden çözülmeli");
+    }
+
+    @Test
+    void eventDuringSolveDropsTheStalePlan() {
+        cache.get(JULY_1, TOUR, () -> {
+            cache.onDatesTouched(new ReservationDatesTouchedEvent(Set.of(JULY_10)));
+            return solver().get();
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void incompletePlanIsNotCached() {
+        Plan partial = new Plan(Map.of("driver1", List.of("Hotel A")), List.of(), false);
+
+        assertSame(partial, cache.get(JULY_1, TOUR, () -> partial));
+        cache.get(JULY_1, TOUR, solver());
+        cache.get(JULY_1, TOUR, solver());
+        assertEquals(1, solved.get());
+    }
+
+    @Test
+    void sizeAndAgeAreBounded() {
+        for (int d = 1; d <= 5; d++) cache.get(JULY_1.plusDays(d), TOUR, solver());
+        assertEquals(3, cache.size());
+
+        clock.now = clock.now.plus(Duration.ofHours(1));
+        cache.get(JULY_1.plusDays(5), TOUR, solver());
+        assertEquals(6, solved.get(), "süresi dolan plan yeniden çözülmeli");
+    }
+
+    private Supplier<Plan> solver() {
+        return () -> {
+            solved.incrementAndGet();
+            return new Plan(Map.of("driver1", List.of("Hotel " + solved.get())), List.of(), true);
+        };
+    }
+}
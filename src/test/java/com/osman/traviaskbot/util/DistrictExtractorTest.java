@@ -0,0 +1,70 @@
+package com.osman.traviaskbot.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistrictExtractorTest {
+
+    private final DistrictExtractor districts = new DistrictExtractor();
+
+    @Test
+    void matchesOnWordBoundariesOnly() {
+        assertEquals("Okurcalar", districts.extract("Kirman Sidera Luxury & Spa, Okurcalar, Alanya/Antalya"));
+        assertEquals(DistrictExtractor.UNKNOWN, districts.extract("Sidera Hotel, Lobby"));
+    }
+
+    @Test
+    void upperRowWinsOverBroadDistrict() {
+        assertEquals("Side",    districts.extract("Crystal Sunset Luxury Resort, Side, Manavgat/Antalya"));
+        assertEquals("Lara",    districts.extract("Club Hotel Sera, Lara, Muratpaşa/Antalya"));
+        assertEquals("Göynük",  districts.extract("Amara Dolce Vita, Göynük, Kemer/Antalya"));
+    }
+
+    @Test
+    void ignoresCaseDiacriticsAndAliasVariants() {
+        assertEquals("Konyaaltı", districts.extract("SEALIFE, KONYAALTI SAHILI"));
+        assertEquals("Çolaklı",   districts.extract("Water Side Resort, colakli"));
+        assertEquals("Tekirova",  districts.extract("Gural Premier Tekir"));
+        assertEquals("Kızılğaç",  districts.extract("Club Nena, Kızılağaç"));
+        assertEquals("İncekum",   districts.extract("incekum beach"));
+        assertEquals("Kaleiçi - Muratpaşa", districts.extract("Hesapçı Sk. 7, Muratpasa"));
+    }
+
+    @Test
+    void blankIsUnknown() {
+        assertEquals(DistrictExtractor.UNKNOWN, districts.extract(null));
+        assertEquals(DistrictExtractor.UNKNOWN, districts.extract("  "));
+    }
+
+    @Test
+    void expandsPatternSubset() {
+        assertEquals(List.of("tekir", "tekirova", "xı", "xi"),
+                DistrictExtractor.Expander.expand("\\btekir(?:ova)?\\b|\\bx[ıi]\\b"));
+        assertThrows(IllegalArgumentException.class, () -> DistrictExtractor.Expander.expand("\\bsi.e\\b"));
+    }
+
+    @Test
+    void reloadsWhenFileChanges(@TempDir Path dir) throws Exception {
+        Path csv = Files.writeString(dir.resolve("aliases.csv"), "\\bside\\b;Side\n");
+        DistrictExtractor ex = new DistrictExtractor(new FileSystemResource(csv));
+        assertEquals(DistrictExtractor.UNKNOWN, ex.extract("Hotel, Belek"));
+
+        Files.writeString(csv, "\\bbelek\\b;Belek\n\\bside\\b;Side\n");
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 5_000));
+        ex.reloadIfChanged();
+        assertEquals("Belek", ex.extract("Hotel, Belek"));
+
+        Files.writeString(csv, "\\bbe{2}lek\\b;Broken\n");
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 10_000));
+        ex.reloadIfChanged();
+        assertEquals("Belek", ex.extract("Hotel, Belek"), "bozuk dosya eski eşleyiciyi bozmamalı");
+    }
+}
@@ -0,0 +1,114 @@
+package com.osman.traviaskbot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GygMailExtractorTest {
+
+    private final GygMailExtractor extractor = new GygMailExtractor(new DistrictExtractor());
+
+    @Test
+    void englishBooking() throws IOException {
+        Map<String,Object> r = extractor.extract(mail("gyg-booking-en.txt"));
+
+        assertNotNull(r);
+        assertEquals(GygMailExtractor.KIND_BOOKING, r.get("kind"));
+        assertEquals("GYGZ8X4K2M1Q", r.get("reference"));
+        assertEquals(LocalDate.of(2025, 7, 14), r.get("date"));
+        assertEquals(LocalTime.of(18, 30), r.get("time"));
+        assertEquals("Land of Legends", r.get("tour"));
+        assertEquals(2, r.get("adults"));
+        assertEquals(1, r.get("children"));
+        assertEquals("Jane Doe", r.get("customer"));
+        assertEquals("+44 7700 900123", r.get("phone"));
+        assertEquals("Crystal Sunset Luxury Resort, Side, Manavgat/Antalya", r.get("pickup"));
+        assertEquals("Side", r.get("district"));
+    }
+
+    @Test
+    void turkishBookingUsesTurkishFormatters() throws IOException {
+        Map<String,Object> r = extractor.extract(mail("gyg-booking-tr.txt"));
+
+        assertNotNull(r);
+        assertEquals("GYG7QW2ERT9Y", r.get("reference"));
+        assertEquals(LocalDate.of(2025, 8, 3), r.get("date"));
+        assertEquals(LocalTime.of(8, 15), r.get("time"));
+        assertEquals("Suluada", r.get("tour"));
+        assertEquals(2, r.get("adults"));
+        assertEquals(2, r.get("children"));
+        assertEquals("Ahmet Yılmaz", r.get("customer"));
+    }
+
+    @Test
+    void missingReferenceIsUnparsed() {
+        assertNull(extractor.extract("Date: July 14, 2025 6:30 PM Main customer: Jane Doe"));
+    }
+
+    @Test
+    void cancellationNeedsOnlyReference() {
+        Map<String,Object> r = extractor.extract(
+                "Your booking has been canceled. Reference number: GYGZ8X4K2M1Q Main customer: Jane Doe");
+
+        assertNotNull(r);
+        assertEquals(GygMailExtractor.KIND_CANCELLATION, r.get("kind"));
+        assertEquals("GYGZ8X4K2M1Q", r.get("reference"));
+        assertEquals("cancelled", r.get("status"));
+        assertNull(r.get("date"));
+    }
+
+    @Test
+    void changeKeepsMissingFieldsNull() {
+        Map<String,Object> r = extractor.extract(
+                "A booking has been changed. Reference number: GYG7QW2ERT9Y Date: August 5, 2025 9:00 AM");
+
+        assertNotNull(r);
+        assertEquals(GygMailExtractor.KIND_CHANGE, r.get("kind"));
+        assertEquals(LocalDate.of(2025, 8, 5), r.get("date"));
+        assertEquals(LocalTime.of(9, 0), r.get("time"));
+        assertNull(r.get("adults"));
+        assertNull(r.get("pickup"));
+    }
+
+    @Test
+    void cancelAndChangeFilesAreDetected() throws IOException {
+        assertEquals(GygMailExtractor.KIND_CANCELLATION, extractor.extract(mail("gyg-cancel-en.txt")).get("kind"));
+        assertEquals(GygMailExtractor.KIND_CHANGE,       extractor.extract(mail("gyg-change-en.txt")).get("kind"));
+    }
+
+    @Test
+    void footerPhraseDoesNotTurnBookingIntoDelta() throws IOException {
+        String text = mail("gyg-booking-en.txt")
+                + " If a booking has been cancelled or has been changed, you will get a separate email."
+                + " Rezervasyonunuz iptal edildi ise ayrıca bilgilendirilirsiniz.";
+
+        Map<String,Object> r = extractor.extract(text);
+
+        assertNotNull(r);
+        assertEquals(GygMailExtractor.KIND_BOOKING, r.get("kind"));
+        assertEquals("confirmed", r.get("status"));
+    }
+
+    @Test
+    void unrelatedCancelWordingInLeadIsIgnored() {
+        Map<String,Object> r = extractor.extract(
+                "Your tour has been cancelled? No - the offer has been booked: Suluada "
+              + "Reference number: GYG7QW2ERT9Y Date: August 5, 2025 9:00 AM");
+
+        assertNotNull(r);
+        assertEquals(GygMailExtractor.KIND_BOOKING, r.get("kind"));
+    }
+
+    static String mail(String name) throws IOException {
+        try (InputStream in = GygMailExtractorTest.class.getResourceAsStream("/mails/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.osman.traviaskbot.util;
+
+import jakarta.mail.Part;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailBodyExtractorTest {
+
+    private final MailBodyExtractor extractor = new MailBodyExtractor(64, 256);
+
+    @Test
+    void skipsAttachmentsAndReturnsFirstTextPart() throws Exception {
+        MimeBodyPart attachment = new MimeBodyPart();
+        attachment.setText("ek dosya – okunmamalı", "UTF-8");
+        attachment.setDisposition(Part.ATTACHMENT);
+
+        MimeBodyPart image = new MimeBodyPart();
+        image.setContent(new byte[4096], "image/png");
+
+        MimeBodyPart html = new MimeBodyPart();
+        html.setContent("<p>Reference\n number:  <b>GYG123</b></p>", "text/html; charset=UTF-8");
+
+        String text = extractor.extract(message(attachment, image, html));
+
+        assertEquals("Reference number: GYG123", text);
+    }
+
+    @Test
+    void plainTextIsCappedWhileStreaming() throws Exception {
+        MimeBodyPart plain = new MimeBodyPart();
+        plain.setText("a ".repeat(1000), "UTF-8");
+
+        String text = extractor.extract(message(plain));
+
+        assertTrue(text.length() <= 64, "sınır aşıldı: " + text.length());
+        assertTrue(text.startsWith("a a a"));
+    }
+
+    @Test
+    void normalizePlainMatchesJsoupWhitespaceRule() {
+        assertEquals("Date: July 14",
+                MailBodyExtractor.normalizePlain("  Date: \n\tJuly   14 \r\n"));
+    }
+
+    @Test
+    void plainTextDecodesHtmlEntitiesLikeJsoup() throws Exception {
+        String raw = "Pickup location: Rixos &amp; Spa&nbsp;&nbsp;Lara\nCustomer: O&#39;Neil &unknown; a & b";
+        MimeBodyPart plain = new MimeBodyPart();
+        plain.setText(raw, "UTF-8");
+
+        String text = new MailBodyExtractor(4096, 4096).extract(message(plain));
+
+        assertEquals("Pickup location: Rixos & Spa Lara Customer: O'Neil &unknown; a & b", text);
+        assertEquals(text, MailBodyExtractor.normalizePlain(raw));
+    }
+
+    private static MimeMessage message(MimeBodyPart... parts) throws Exception {
+        MimeMultipart mp = new MimeMultipart();
+        for (MimeBodyPart p : parts) mp.addBodyPart(p);
+        MimeMessage msg = new MimeMessage(Session.getInstance(new Properties()));
+        msg.setContent(mp);
+        msg.saveChanges();
+        return msg;
+    }
+}
@@ -0,0 +1,46 @@
+package com.osman.traviaskbot.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailParserRegistryTest {
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final MailParserRegistry registry = new MailParserRegistry(List.of(
+            fake("gyg",    "notification.getyourguide.com", "GYG"),
+            fake("viator", "viator.com",                    "BR-")), meters);
+
+    @Test
+    void dispatchesBySenderDomainWithoutFingerprint() {
+        // gövde parmak iziyle eşleşmese de alan adı belirleyici
+        assertEquals("gyg", registry.parse("GetYourGuide <no-reply@Notification.GetYourGuide.com>", "x").get("by"));
+        assertEquals("viator", registry.parse("bookings@mail.viator.com", "x").get("by"));
+    }
+
+    @Test
+    void unknownSenderFallsBackToFingerprint() {
+        assertEquals("viator", registry.parse(null, "Booking BR-123").get("by"));
+        assertNull(registry.parse(null, "newsletter"));
+    }
+
+    @Test
+    void recordsPerParserTimer() {
+        registry.parse("a@viator.com", "x");
+        assertEquals(1, meters.get("ingest.parser").tags("parser", "viator", "outcome", "parsed").timer().count());
+    }
+
+    private static BookingMailParser fake(String name, String domain, String marker) {
+        return new BookingMailParser() {
+            public String name()                      { return name; }
+            public Set<String> senderDomains()        { return Set.of(domain); }
+            public boolean matches(String text)       { return text.contains(marker); }
+            public Map<String,Object> parse(String t) { return Map.of("by", name); }
+        };
+    }
+}
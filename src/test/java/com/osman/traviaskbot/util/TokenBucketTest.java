@@ -0,0 +1,27 @@
+package com.osman.traviaskbot.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    @Test
+    void burstIsFreeThenRateLimited() throws Exception {
+        TokenBucket bucket = new TokenBucket(20, 3);
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < 3; i++) bucket.acquire();
+        assertTrue(System.nanoTime() - t0 < 40_000_000L, "patlama beklememeli");
+
+        long t1 = System.nanoTime();
+        for (int i = 0; i < 6; i++) bucket.acquire();
+        long ms = (System.nanoTime() - t1) / 1_000_000;
+        assertTrue(ms >= 250, "6 token / 20 qps ≈ 300 ms, ölçülen " + ms);
+    }
+
+    @Test
+    void rejectsNonPositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+    }
+}
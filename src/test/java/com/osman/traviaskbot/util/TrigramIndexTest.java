@@ -0,0 +1,33 @@
+package com.osman.traviaskbot.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    @Test
+    void findsClosestKeyAboveThreshold() {
+        TrigramIndex index = new TrigramIndex();
+        int sunset = index.add("crystal sunset luxury side manavgat");
+        index.add("crystal tat beach golf belek serik");
+        index.add("club sera lara muratpasa");
+
+        TrigramIndex.Hit hit = index.best("crystal sunset luxury side", 0.65);
+        assertNotNull(hit);
+        assertEquals(sunset, hit.id());
+        assertTrue(hit.score() > 0.8, "skor: " + hit.score());
+
+        assertNull(index.best("sunset beach side", 0.65));
+        assertNull(index.best("", 0.1));
+    }
+
+    @Test
+    void identicalKeyScoresOne() {
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i < 40; i++) index.add("otel " + i);     // postings listeleri büyüsün
+        int id = index.add("club sera lara");
+        assertEquals(1.0, index.best("club sera lara", 0.9).score(), 1e-9);
+        assertEquals(id, index.best("club sera lara", 0.9).id());
+    }
+}